@@ -0,0 +1,23 @@
+package bguspl.set;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks (all of them, or those matching the arguments, which are the usual JMH command line options).
+ * The gc profiler is added, so that the allocation rate is reported next to the throughput, unless the command line
+ * picks its own profilers (-prof) or it is turned off with -Dbenchmarks.gc=false.
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty() && Boolean.parseBoolean(System.getProperty("benchmarks.gc", "true")))
+            options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,206 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Throughput of the set engine (UtilImpl) on decks of different shapes and sizes, and with different shares of sets.
+ * Each benchmark goes round a fixed batch of prepared inputs, a hitRatio share of which are (or contain) a set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    /**
+     * The number of prepared inputs of each benchmark (a power of 2).
+     */
+    private static final int samples = 256;
+
+    /**
+     * The attempts at building a deck without sets before settling for a deck with one.
+     */
+    private static final int capAttempts = 3;
+
+    /**
+     * The number of different decks without sets (they are slow to build, so the misses reuse them).
+     */
+    private static final int capDecks = 4;
+
+    /**
+     * The shape of the deck: FeatureSize x FeatureCount (3x6 is a deck of 729 cards).
+     */
+    @Param({"3x4", "3x5", "4x4", "3x6"})
+    public String deck;
+
+    /**
+     * The number of cards searched for sets (a table, or a whole deck - capped at the deck's size). 729 cards are at
+     * the default parallelSearchThreshold, so findFirstSet and findAllSets search them on the fork/join pool.
+     */
+    @Param({"12", "81", "729"})
+    public int cards;
+
+    /**
+     * The share of the inputs that are (or contain) a set. Decks without sets are built greedily, and where there are
+     * none of that size (e.g. the whole 3x4 deck) decks with a set are used instead.
+     */
+    @Param({"0", "0.5", "1"})
+    public double hitRatio;
+
+    private Config config;
+    private Util util;
+    private final Random random = new Random(1);
+
+    private int[][] candidates;
+    private int[][] decks;
+    private List<List<Integer>> deckLists;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] shape = deck.split("x");
+        Properties properties = new Properties();
+        properties.put("FeatureSize", shape[0]);
+        properties.put("FeatureCount", shape[1]);
+        config = new Config(Logger.getLogger("benchmark"), properties);
+        util = new UtilImpl(config);
+
+        int hits = (int) Math.round(samples * hitRatio);
+        candidates = new int[samples][];
+        decks = new int[samples][];
+        deckLists = new ArrayList<>(samples);
+        List<List<Integer>> caps = new ArrayList<>();
+        for (int i = 0; i < samples; i++) {
+            boolean hit = i < hits;
+            candidates[i] = hit ? randomSet() : randomNonSet();
+            if (!hit && caps.size() < capDecks)
+                caps.add(deckWithoutSet());
+            deckLists.add(hit ? deckWithSet() : caps.get(i % caps.size()));
+        }
+        shuffle(candidates);
+        Collections.shuffle(deckLists, random);
+        for (int i = 0; i < samples; i++)
+            decks[i] = deckLists.get(i).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int next() {
+        next = (next + 1) & (samples - 1);
+        return next;
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(candidates[next()]);
+    }
+
+    @Benchmark
+    public List<int[]> findFirstSet() {
+        return util.findSets(deckLists.get(next()), 1);
+    }
+
+    @Benchmark
+    public List<int[]> findAllSets() {
+        return util.findSets(deckLists.get(next()), Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        return util.cardsToFeatures(decks[next()]);
+    }
+
+    /**
+     * @return - a random legal set: every feature is either the same in all the cards or different in all of them.
+     */
+    private int[] randomSet() {
+        int[] set = new int[config.featureSize];
+        for (int feature = 0; feature < config.featureCount; feature++) {
+            boolean same = random.nextBoolean();
+            int value = random.nextInt(config.featureSize);
+            for (int i = 0; i < set.length; i++)
+                set[i] = set[i] * config.featureSize + (same ? value : (value + i) % config.featureSize);
+        }
+        // if every feature is the same the cards are too, so make the last feature different in all of them
+        if (set[0] == set[1])
+            for (int i = 0; i < set.length; i++)
+                set[i] = set[i] - set[i] % config.featureSize + i;
+        return set;
+    }
+
+    private int[] randomNonSet() {
+        int[] cards;
+        do {
+            cards = random.ints(0, config.deckSize).distinct().limit(config.featureSize).toArray();
+        } while (util.testSet(cards));
+        return cards;
+    }
+
+    /**
+     * @return - a legal set and random other cards, shuffled.
+     */
+    private List<Integer> deckWithSet() {
+        List<Integer> deck = new ArrayList<>();
+        for (int card : randomSet())
+            deck.add(card);
+        List<Integer> others = shuffledDeck();
+        for (int i = 0; deck.size() < Math.min(cards, config.deckSize); i++)
+            if (!deck.contains(others.get(i)))
+                deck.add(others.get(i));
+        Collections.shuffle(deck, random);
+        return deck;
+    }
+
+    /**
+     * @return - cards without a set, added greedily in random order; or a deck with a set if that fails.
+     */
+    private List<Integer> deckWithoutSet() {
+        for (int attempt = 0; attempt < capAttempts; attempt++) {
+            List<Integer> deck = new ArrayList<>();
+            for (int card : shuffledDeck()) {
+                deck.add(card);
+                if (!util.findSets(deck, 1).isEmpty())
+                    deck.remove(deck.size() - 1);
+                else if (deck.size() == cards)
+                    return deck;
+            }
+        }
+        return deckWithSet();
+    }
+
+    private List<Integer> shuffledDeck() {
+        List<Integer> deck = new ArrayList<>(config.deckSize);
+        for (int card = 0; card < config.deckSize; card++)
+            deck.add(card);
+        Collections.shuffle(deck, random);
+        return deck;
+    }
+
+    private void shuffle(int[][] array) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int[] temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceHeadless;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Contention on the table: players placing and removing tokens (and reading them) while the dealer checks claims and
+ * replaces cards, with 4, 16 and 64 player threads on one table.
+ * In each group half of the player threads place the tokens of a player each, a quarter remove tokens of random
+ * players and a quarter read them, and one thread is the dealer: as in the game, the same thread checks the claims
+ * and replaces the cards (the set count of the table has a single writer).
+ * Each operation reports its throughput and its latency distribution (sample time percentiles). The dealer's are the
+ * ones to watch: it takes the same (non-fair) slot locks as all the player threads, so it is starved as they grow,
+ * and a starved dealer delays every verdict.
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    /**
+     * The most players of a group.
+     */
+    private static final int maxPlayers = 64;
+
+    private Config config;
+    private Table table;
+
+    /**
+     * The number of players, each with a thread placing its tokens.
+     */
+    private final AtomicInteger placers = new AtomicInteger();
+
+    /**
+     * The next slot and card of the dealer (used by the dealer thread only).
+     */
+    private int nextSlot;
+    private int nextCard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(maxPlayers));
+        properties.put("TableDelaySeconds", "0");
+        Logger logger = Logger.getLogger("benchmark");
+        logger.setLevel(java.util.logging.Level.OFF);
+        config = new Config(logger, properties);
+        table = new Table(new Env(logger, config, new UserInterfaceHeadless(), new UtilImpl(config)));
+        for (int slot = 0; slot < config.tableSize; slot++)
+            table.placeCard(slot, slot);
+        nextCard = config.tableSize;
+    }
+
+    /**
+     * The player id of a thread placing tokens, taken on its first call.
+     */
+    @State(Scope.Thread)
+    public static class Player {
+        int id = -1;
+    }
+
+    private int randomSlot() {
+        return ThreadLocalRandom.current().nextInt(config.tableSize);
+    }
+
+    private int randomPlayer() {
+        return ThreadLocalRandom.current().nextInt(Math.max(1, Math.min(placers.get(), maxPlayers)));
+    }
+
+    private void placeToken(Player player) {
+        if (player.id < 0)
+            player.id = placers.getAndIncrement() % maxPlayers;
+        table.placeToken(player.id, randomSlot());
+    }
+
+    private boolean removeToken() {
+        return table.removeToken(randomPlayer(), randomSlot());
+    }
+
+    private boolean playerContainsToken() {
+        return table.playerContainsToken(randomSlot(), randomPlayer());
+    }
+
+    /**
+     * A step of the dealer: checks the next claim (if any) and replaces a card.
+     */
+    private int[] dealer() {
+        int[] verdict = table.checkSet(0);
+        replaceCard();
+        return verdict;
+    }
+
+    /**
+     * Replaces the card of the next slot (or fills it, if a legal set was taken from it) with the next card of the
+     * deck that is not on the table.
+     */
+    private void replaceCard() {
+        int slot = nextSlot;
+        nextSlot = (nextSlot + 1) % config.tableSize;
+        table.removeCard(slot);
+        int card;
+        do {
+            card = nextCard;
+            nextCard = (nextCard + 1) % config.deckSize;
+        } while (isOnTable(card));
+        table.placeCard(card, slot);
+    }
+
+    private boolean isOnTable(int card) {
+        Integer slot = table.cardToSlot[card];
+        return slot != null && table.slotToCard[slot] != null && table.slotToCard[slot] == card;
+    }
+
+    // 4 player threads
+
+    @Benchmark
+    @Group("players4")
+    @GroupThreads(2)
+    public void placeToken4(Player player) {
+        placeToken(player);
+    }
+
+    @Benchmark
+    @Group("players4")
+    @GroupThreads(1)
+    public boolean removeToken4() {
+        return removeToken();
+    }
+
+    @Benchmark
+    @Group("players4")
+    @GroupThreads(1)
+    public boolean playerContainsToken4() {
+        return playerContainsToken();
+    }
+
+    @Benchmark
+    @Group("players4")
+    @GroupThreads(1)
+    public int[] dealer4() {
+        return dealer();
+    }
+
+    // 16 player threads
+
+    @Benchmark
+    @Group("players16")
+    @GroupThreads(8)
+    public void placeToken16(Player player) {
+        placeToken(player);
+    }
+
+    @Benchmark
+    @Group("players16")
+    @GroupThreads(4)
+    public boolean removeToken16() {
+        return removeToken();
+    }
+
+    @Benchmark
+    @Group("players16")
+    @GroupThreads(4)
+    public boolean playerContainsToken16() {
+        return playerContainsToken();
+    }
+
+    @Benchmark
+    @Group("players16")
+    @GroupThreads(1)
+    public int[] dealer16() {
+        return dealer();
+    }
+
+    // 64 player threads
+
+    @Benchmark
+    @Group("players64")
+    @GroupThreads(32)
+    public void placeToken64(Player player) {
+        placeToken(player);
+    }
+
+    @Benchmark
+    @Group("players64")
+    @GroupThreads(16)
+    public boolean removeToken64() {
+        return removeToken();
+    }
+
+    @Benchmark
+    @Group("players64")
+    @GroupThreads(16)
+    public boolean playerContainsToken64() {
+        return playerContainsToken();
+    }
+
+    @Benchmark
+    @Group("players64")
+    @GroupThreads(1)
+    public int[] dealer64() {
+        return dealer();
+    }
+}
@@ -0,0 +1,18 @@
+package bguspl.set;
+
+/**
+ * When the computer players press keys.
+ */
+public enum AiMode {
+
+    /**
+     * Press random keys all the time (except while frozen).
+     */
+    BUSY,
+
+    /**
+     * Sleep until the table changes or the player's freeze is lifted, then claim the cards chosen by its AiStrategy
+     * after a reaction time.
+     */
+    EVENTS
+}
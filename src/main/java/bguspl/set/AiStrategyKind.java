@@ -0,0 +1,22 @@
+package bguspl.set;
+
+/**
+ * How the event driven computer players choose the cards they claim.
+ */
+public enum AiStrategyKind {
+
+    /**
+     * Claim three random cards (mostly not a set).
+     */
+    RANDOM,
+
+    /**
+     * Claim a legal set of the table right away.
+     */
+    ORACLE,
+
+    /**
+     * Claim a legal set of the table after a thinking time drawn from AiThinkDistribution.
+     */
+    HUMAN_LIKE
+}
@@ -0,0 +1,45 @@
+package bguspl.set;
+
+import java.util.concurrent.Future;
+import java.util.function.LongPredicate;
+
+/**
+ * This interface is the source of time for the game: the wall clock when playing, or a virtual clock when simulating.
+ */
+public interface Clock {
+
+    /**
+     * @return - the current time in milliseconds (as System.currentTimeMillis()).
+     */
+    long millis();
+
+    /**
+     * @return - the current time in nanoseconds, only meaningful for measuring elapsed time (as System.nanoTime()).
+     */
+    long nanos();
+
+    /**
+     * Lets the given time pass for the calling thread.
+     *
+     * @param millis - the milliseconds to sleep.
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Runs a task once the given time passed.
+     *
+     * @param task       - the task to run.
+     * @param delayNanos - the nanoseconds from now to run the task at.
+     * @return - the scheduled task (may be cancelled).
+     */
+    Future<?> schedule(Runnable task, long delayNanos);
+
+    /**
+     * Waits for an event of other threads for up to the given time.
+     *
+     * @param timeoutNanos - the maximum nanoseconds to wait.
+     * @param wait         - waits for the event for up to the nanoseconds it is given, returns true iff it happened.
+     * @return - true iff the event happened.
+     */
+    boolean await(long timeoutNanos, LongPredicate wait);
+}
@@ -36,6 +36,11 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The number of cards from which Util::findSets searches in parallel (on the common fork/join pool)
+     */
+    public final int parallelSearchThreshold;
+
     /**
      * The number of human players in the game.
      */
@@ -51,6 +56,42 @@ public class Config {
      */
     public final int players;
 
+    /**
+     * How the players and their computer input run (threads, virtual threads or tasks on a worker pool)
+     */
+    public final ExecutionModel executionModel;
+
+    /**
+     * The number of threads of the worker pool of the pool execution model (0 for the number of cores)
+     */
+    public final int workerThreads;
+
+    /**
+     * When the computer players press keys (all the time, or when the table changes)
+     */
+    public final AiMode aiMode;
+
+    /**
+     * The number of milliseconds an event driven computer player takes to react to a change
+     */
+    public final long aiReactionMillis;
+
+    /**
+     * How the event driven computer players choose the cards they claim
+     */
+    public final AiStrategyKind aiStrategy;
+
+    /**
+     * The distribution of the thinking times of human-like computer players
+     */
+    public final ThinkTimeDistribution aiThinkDistribution;
+
+    /**
+     * The mean and the standard deviation of the thinking times of human-like computer players, in milliseconds
+     */
+    public final double aiThinkMeanMillis;
+    public final double aiThinkDeviationMillis;
+
     /**
      * Whether to print out hints to the console or not
      */
@@ -86,6 +127,42 @@ public class Config {
      */
     public final long endGamePauseMillies;
 
+    /**
+     * The number of headless games to simulate with a virtual clock instead of playing a game (0 to play normally)
+     */
+    public final int simulationGames;
+
+    /**
+     * The number of microseconds (of real time) the dealer of a simulated game waits for the players before skipping
+     * ahead in the virtual time
+     */
+    public final long simulationIdleMicros;
+
+    /**
+     * The number of threads all the games of a game host may use together
+     */
+    public final int hostThreadBudget;
+
+    /**
+     * The number of milliseconds to load the dealer with claims of synthetic players (0 to play a normal game)
+     */
+    public final long loadTestMillis;
+
+    /**
+     * The number of keys each synthetic player of the load test presses per second
+     */
+    public final double loadTestKeysPerSecond;
+
+    /**
+     * The share of the claims of the synthetic players that are legal sets (when the table has one)
+     */
+    public final double loadTestValidFraction;
+
+    /**
+     * The localhost port of the endpoint serving the metrics of the game in Prometheus text format (0 to disable)
+     */
+    public final int metricsPort;
+
     /**
      * The names of the players to display on the screen
      * Note: if there are more players than names, the remaining players will be called "Player 3", "Player 4", etc.
@@ -176,6 +253,14 @@ public class Config {
         return properties;
     }
 
+    /**
+     * @param value - a camel case value of the configuration file (e.g. HumanLike).
+     * @return - the name of the enum constant it stands for (e.g. HUMAN_LIKE).
+     */
+    private static String constantName(String value) {
+        return value.trim().replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase();
+    }
+
     public Config(Logger logger, String configFilename) {
         this(logger, loadProperties(configFilename, logger));
     }
@@ -197,12 +282,56 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        parallelSearchThreshold = Integer.parseInt(properties.getProperty("ParallelSearchThreshold", "729"));
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
 
+        ExecutionModel model;
+        try {
+            model = ExecutionModel.valueOf(properties.getProperty("ExecutionModel", "Threads").trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.severe("invalid execution model: " + properties.getProperty("ExecutionModel") + ", using threads");
+            model = ExecutionModel.THREADS;
+        }
+        if (model == ExecutionModel.VIRTUAL && !ExecutionModel.virtualThreadsSupported()) {
+            logger.severe("virtual threads are not supported by this runtime, using threads");
+            model = ExecutionModel.THREADS;
+        }
+        executionModel = model;
+        workerThreads = Integer.parseInt(properties.getProperty("WorkerThreads", "0"));
+
+        AiMode mode;
+        try {
+            mode = AiMode.valueOf(properties.getProperty("AiMode", "Busy").trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.severe("invalid ai mode: " + properties.getProperty("AiMode") + ", using busy");
+            mode = AiMode.BUSY;
+        }
+        aiMode = mode;
+        aiReactionMillis = (long) (Double.parseDouble(properties.getProperty("AiReactionSeconds", "0.1")) * 1000.0);
+
+        AiStrategyKind strategy;
+        try {
+            strategy = AiStrategyKind.valueOf(constantName(properties.getProperty("AiStrategy", "Random")));
+        } catch (IllegalArgumentException e) {
+            logger.severe("invalid ai strategy: " + properties.getProperty("AiStrategy") + ", using random");
+            strategy = AiStrategyKind.RANDOM;
+        }
+        aiStrategy = strategy;
+        ThinkTimeDistribution distribution;
+        try {
+            distribution = ThinkTimeDistribution.valueOf(constantName(properties.getProperty("AiThinkDistribution", "LogNormal")));
+        } catch (IllegalArgumentException e) {
+            logger.severe("invalid think time distribution: " + properties.getProperty("AiThinkDistribution") + ", using log normal");
+            distribution = ThinkTimeDistribution.LOG_NORMAL;
+        }
+        aiThinkDistribution = distribution;
+        aiThinkMeanMillis = Double.parseDouble(properties.getProperty("AiThinkMeanSeconds", "2")) * 1000.0;
+        aiThinkDeviationMillis = Double.parseDouble(properties.getProperty("AiThinkDeviationSeconds", "1")) * 1000.0;
+
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
@@ -211,6 +340,19 @@ public class Config {
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
 
+        // simulation settings
+        simulationGames = Integer.parseInt(properties.getProperty("SimulationGames", "0"));
+        simulationIdleMicros = Long.parseLong(properties.getProperty("SimulationIdleMicros", "50"));
+
+        // game host settings
+        hostThreadBudget = Integer.parseInt(properties.getProperty("HostThreadBudget", "512"));
+
+        // load test settings
+        loadTestMillis = (long) (Double.parseDouble(properties.getProperty("LoadTestSeconds", "0")) * 1000.0);
+        loadTestKeysPerSecond = Double.parseDouble(properties.getProperty("LoadTestKeysPerSecond", "20"));
+        loadTestValidFraction = Double.parseDouble(properties.getProperty("LoadTestValidFraction", "0.5"));
+        metricsPort = Integer.parseInt(properties.getProperty("MetricsPort", "0"));
+
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
         playerNames = new String[players];
@@ -8,11 +8,26 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final Clock clock;
+    public final Metrics metrics;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, new SystemClock());
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock) {
+        this(logger, config, ui, util, clock, new Metrics(config.players));
+    }
+
+    /**
+     * @param metrics - the metrics to record the game in (e.g. shared by the games of a load test).
+     */
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock, Metrics metrics) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.clock = clock;
+        this.metrics = metrics;
     }
 }
@@ -0,0 +1,91 @@
+package bguspl.set;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How the players and their computer input run.
+ */
+public enum ExecutionModel {
+
+    /**
+     * Every player, and the computer input of every computer player, runs its own loop on a platform thread.
+     */
+    THREADS,
+
+    /**
+     * As THREADS, with virtual threads (needs a Java 21 runtime - falls back to THREADS otherwise).
+     */
+    VIRTUAL,
+
+    /**
+     * The players and their computer input run as short tasks on a worker pool shared by all the games, whenever an
+     * event needs them (a verdict, the end of a freeze, a key press). The number of threads depends on the cores.
+     */
+    POOL;
+
+    /**
+     * Creates virtual threads (null if the runtime does not support them).
+     */
+    private static final ThreadFactory virtualThreads = virtualThreadFactory(Thread.class);
+
+    private static ExecutorService workers;
+
+    /**
+     * @param threads - the class to find ofVirtual in: Thread (another class stands for a runtime without it in tests).
+     * @return - a factory of virtual threads, or null if the runtime does not support them (e.g. Java 8).
+     */
+    static ThreadFactory virtualThreadFactory(Class<?> threads) {
+        try {
+            // Thread.ofVirtual().factory(), without requiring a Java 21 build target
+            Object builder = threads.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return - true iff the runtime supports virtual threads.
+     */
+    public static boolean virtualThreadsSupported() {
+        return virtualThreads != null;
+    }
+
+    /**
+     * Creates a thread for a loop of a player (in the THREADS and VIRTUAL models).
+     *
+     * @param task - the loop to run.
+     * @param name - the name of the thread.
+     * @return - the new (unstarted) thread.
+     */
+    public Thread newThread(Runnable task, String name) {
+        if (this == VIRTUAL && virtualThreads != null) {
+            Thread thread = virtualThreads.newThread(task);
+            thread.setName(name);
+            return thread;
+        }
+        return new Thread(task, name);
+    }
+
+    /**
+     * @param threads - the number of worker threads (0 for the number of cores), used by the first call only.
+     * @return - the worker pool of the POOL model, shared by all the games in the process.
+     */
+    public static synchronized ExecutorService workers(int threads) {
+        if (workers == null) {
+            int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            AtomicInteger count = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(size, task -> {
+                Thread thread = new Thread(task, "worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+}
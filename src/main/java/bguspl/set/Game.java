@@ -0,0 +1,184 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A single game: its environment, table, dealer and players, and the dealer's thread (which runs the players' threads).
+ * All the players are computer players.
+ */
+public class Game {
+
+    public enum State { QUEUED, RUNNING, FINISHED, STOPPED }
+
+    /**
+     * The id of the game (unique in its host).
+     */
+    public final int id;
+
+    /**
+     * The game environment object.
+     */
+    public final Env env;
+
+    private final Table table;
+    private final Dealer dealer;
+    private final Player[] players;
+
+    private volatile State state = State.QUEUED;
+    private volatile Thread dealerThread;
+
+    /**
+     * The time the game started and ended (according to its clock).
+     */
+    private volatile long startMillis;
+    private volatile long endMillis;
+
+    /**
+     * The real time the game started and ended.
+     */
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    /**
+     * Counted down once the game is over and its threads are done (or once it is stopped before it started).
+     */
+    private final CountDownLatch ended = new CountDownLatch(1);
+
+    /**
+     * @param id  - the id of the game.
+     * @param env - the environment of the game (not shared with other games, except for the config and util).
+     */
+    public Game(int id, Env env) {
+        this.id = id;
+        this.env = env;
+        table = new Table(env);
+        players = new Player[env.config.players];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+    }
+
+    /**
+     * @return - the number of threads the game runs: the dealer, and the players and their computer input threads
+     * unless they run on the shared worker pool.
+     */
+    public int threads() {
+        return threads(env.config);
+    }
+
+    /**
+     * @return - the number of threads a game with the given config runs.
+     */
+    public static int threads(Config config) {
+        return config.executionModel == ExecutionModel.POOL ? 1 : 1 + 2 * config.players;
+    }
+
+    /**
+     * Starts the dealer's thread.
+     *
+     * @param onEnd - called by the dealer's thread when the game is over (finished or stopped).
+     */
+    public synchronized void start(Runnable onEnd) {
+        if (state != State.QUEUED)
+            throw new IllegalStateException("game " + id + " is " + state);
+        state = State.RUNNING;
+        startMillis = env.clock.millis();
+        startNanos = System.nanoTime();
+        dealerThread = new Thread(() -> {
+            try {
+                dealer.run();
+            } finally {
+                endMillis = env.clock.millis();
+                endNanos = System.nanoTime();
+                synchronized (this) {
+                    if (state == State.RUNNING) state = State.FINISHED;
+                }
+                try {
+                    onEnd.run();
+                } finally {
+                    ended.countDown();
+                }
+            }
+        }, "dealer-" + id);
+        dealerThread.start();
+    }
+
+    /**
+     * Stops the game (a queued game will not start).
+     *
+     * @return - true iff the game was queued or running.
+     */
+    public synchronized boolean stop() {
+        if (state == State.QUEUED) {
+            state = State.STOPPED;
+            ended.countDown();
+            return true;
+        }
+        if (state != State.RUNNING)
+            return false;
+        state = State.STOPPED;
+        dealer.terminate();
+        return true;
+    }
+
+    /**
+     * Waits until the game is over and its threads are done.
+     */
+    public void join() throws InterruptedException {
+        ended.await();
+    }
+
+    /**
+     * @return - true iff the game is over and its threads are done.
+     */
+    public boolean isOver() {
+        return ended.getCount() == 0;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /**
+     * @return - the current scores of the players.
+     */
+    public int[] scores() {
+        return Arrays.stream(players).mapToInt(Player::score).toArray();
+    }
+
+    /**
+     * @return - the milliseconds the game has been running (or ran) for, according to its clock.
+     */
+    public long millis() {
+        if (dealerThread == null)
+            return 0;
+        return (isOver() ? endMillis : env.clock.millis()) - startMillis;
+    }
+
+    /**
+     * @return - the real nanoseconds the game has been running (or ran) for.
+     */
+    public long realNanos() {
+        if (dealerThread == null)
+            return 0;
+        return (isOver() ? endNanos : System.nanoTime()) - startNanos;
+    }
+
+    /**
+     * @return - the number of cards left in the dealer's deck.
+     */
+    public int deckSize() {
+        return dealer.getDeckSize();
+    }
+
+    @Override
+    public String toString() {
+        return "game " + id + " " + state + " scores " + Arrays.toString(scores()) + " time " + millis() + "ms"
+                + " deck " + deckSize();
+    }
+}
@@ -0,0 +1,177 @@
+package bguspl.set;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Hosts many independent games in one process.
+ * Every game has its own environment (logger, clock and headless user interface), table, dealer and players; only the
+ * config and util are shared. The games share a budget of threads: a game is started once there are enough threads
+ * left for its dealer, players and computer input threads, and waits in a queue until then.
+ */
+public class GameHost {
+
+    private final Logger logger;
+    private final Config config;
+    private final Util util;
+
+    /**
+     * Creates the clock of each game.
+     */
+    private final Supplier<Clock> clocks;
+
+    /**
+     * The number of threads all the running games may use together, and the number they use.
+     */
+    private final int threadBudget;
+    private int threadsInUse;
+
+    /**
+     * The games by their ids (in the order they were created), and the games waiting for threads.
+     */
+    private final Map<Integer, Game> games = new LinkedHashMap<>();
+    private final Deque<Game> queue = new ArrayDeque<>();
+
+    private int nextId = 1;
+    private boolean shutdown;
+
+    /**
+     * Creates a host of games played in real time, with the thread budget from the config.
+     */
+    public GameHost(Logger logger, Config config, Util util) {
+        this(logger, config, util, config.hostThreadBudget, SystemClock::new);
+    }
+
+    /**
+     * @param threadBudget - the number of threads all the running games may use together.
+     * @param clocks       - creates the clock of each game.
+     */
+    public GameHost(Logger logger, Config config, Util util, int threadBudget, Supplier<Clock> clocks) {
+        this.logger = logger;
+        this.config = config;
+        this.util = util;
+        this.threadBudget = threadBudget;
+        this.clocks = clocks;
+    }
+
+    /**
+     * Creates a game and starts it, or queues it until there are enough threads for it.
+     *
+     * @return - the id of the game.
+     * @throws IllegalStateException    - if the host was shut down.
+     * @throws IllegalArgumentException - if a game needs more threads than the whole budget.
+     */
+    public synchronized int start() {
+        if (shutdown)
+            throw new IllegalStateException("the game host was shut down");
+        int id = nextId++;
+        Logger gameLogger = Logger.getLogger(logger.getName() + ".game-" + id);
+        Game game = new Game(id, new Env(gameLogger, config, new UserInterfaceHeadless(), util, clocks.get()));
+        if (game.threads() > threadBudget)
+            throw new IllegalArgumentException("a game needs " + game.threads() + " threads, the budget is " + threadBudget);
+
+        games.put(id, game);
+        queue.add(game);
+        logger.info("game " + id + " created");
+        dispatch();
+        return id;
+    }
+
+    /**
+     * Starts the queued games, in order, while there are enough threads for them.
+     */
+    private synchronized void dispatch() {
+        while (!queue.isEmpty()) {
+            Game game = queue.peek();
+            if (game.state() != Game.State.QUEUED) {
+                queue.poll(); // stopped before it started
+                continue;
+            }
+            if (threadsInUse + game.threads() > threadBudget)
+                return;
+
+            queue.poll();
+            threadsInUse += game.threads();
+            game.start(() -> ended(game));
+            logger.info("game " + game.id + " started");
+        }
+    }
+
+    /**
+     * Called by the dealer thread of a game once the game is over: returns its threads to the budget.
+     */
+    private synchronized void ended(Game game) {
+        threadsInUse -= game.threads();
+        logger.info("game " + game.id + " " + game.state().name().toLowerCase());
+        dispatch();
+    }
+
+    /**
+     * Stops a game.
+     *
+     * @return - true iff the game was queued or running.
+     */
+    public synchronized boolean stop(int id) {
+        Game game = games.get(id);
+        if (game == null || !game.stop())
+            return false;
+        dispatch();
+        return true;
+    }
+
+    /**
+     * Forgets a game that is over.
+     *
+     * @return - true iff the game was removed.
+     */
+    public synchronized boolean remove(int id) {
+        Game game = games.get(id);
+        if (game == null || !game.isOver())
+            return false;
+        games.remove(id);
+        return true;
+    }
+
+    /**
+     * @return - the game with the given id, or null if there is no such game.
+     */
+    public synchronized Game query(int id) {
+        return games.get(id);
+    }
+
+    /**
+     * @return - all the games of the host, in the order they were created.
+     */
+    public synchronized List<Game> list() {
+        return new ArrayList<>(games.values());
+    }
+
+    /**
+     * @return - the number of threads used by the running games.
+     */
+    public synchronized int threadsInUse() {
+        return threadsInUse;
+    }
+
+    /**
+     * Stops all the games and waits for them to end. No games can be started afterwards.
+     */
+    public void shutdown() throws InterruptedException {
+        List<Game> all;
+        synchronized (this) {
+            shutdown = true;
+            all = list();
+            for (Game game : all)
+                game.stop();
+            queue.clear();
+        }
+        for (Game game : all)
+            game.join();
+    }
+}
@@ -0,0 +1,145 @@
+package bguspl.set;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values (e.g. latencies in nanoseconds) with log-linear buckets, in the style of an HDR
+ * histogram: every power of two is split into 32 buckets, so every value is counted with a relative error of at most
+ * 1/32 (about 3%). Recording is lock-free and does not allocate, and may be done by many threads at a time.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The bits of precision of every power of two, and the number of buckets they make.
+     */
+    private static final int subBucketBits = 5;
+    private static final int subBuckets = 1 << subBucketBits;
+
+    /**
+     * Enough buckets for every non-negative long.
+     */
+    private static final int buckets = subBuckets + (Long.SIZE - 1 - subBucketBits) * subBuckets;
+
+    private final AtomicLongArray counts = new AtomicLongArray(buckets);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+
+    /**
+     * Counts a value (negative values are counted as 0).
+     *
+     * @param value - the value to count.
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value))
+            ;
+    }
+
+    /**
+     * @return - the number of values counted.
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * @return - the sum of the values counted.
+     */
+    public long sum() {
+        return sum.get();
+    }
+
+    /**
+     * @return - the largest value counted (exactly), or 0 if none.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile - the percentile (between 0 and 100).
+     * @return - the value at the given percentile: the highest value of the bucket that holds it (capped by the max),
+     * or 0 if no value was counted.
+     */
+    public long valueAt(double percentile) {
+        long total = 0;
+        for (int i = 0; i < buckets; i++)
+            total += counts.get(i);
+        if (total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < buckets; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(highestValue(i), max());
+        }
+        return max();
+    }
+
+    /**
+     * @param value - the bound.
+     * @return - the number of values counted in the buckets up to the one that holds the bound (so values slightly
+     * above it, in the same bucket, are counted too).
+     */
+    public long countAtOrBelow(long value) {
+        if (value < 0)
+            return 0;
+        int last = bucket(value);
+        long total = 0;
+        for (int i = 0; i <= last; i++)
+            total += counts.get(i);
+        return total;
+    }
+
+    /**
+     * Forgets all the values counted.
+     */
+    public void reset() {
+        for (int i = 0; i < buckets; i++)
+            counts.set(i, 0);
+        count.set(0);
+        max.set(0);
+        sum.set(0);
+    }
+
+    /**
+     * Copies the histogram while values are being recorded (a value recorded during the copy may be missing from some
+     * of its totals).
+     *
+     * @return - a copy of the histogram.
+     */
+    public LatencyHistogram snapshot() {
+        LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < buckets; i++)
+            copy.counts.set(i, counts.get(i));
+        copy.count.set(count.get());
+        copy.max.set(max.get());
+        copy.sum.set(sum.get());
+        return copy;
+    }
+
+    private static int bucket(long value) {
+        if (value < subBuckets)
+            return (int) value;
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - subBucketBits;
+        return subBuckets + shift * subBuckets + (int) (value >>> shift) - subBuckets;
+    }
+
+    private static long highestValue(int bucket) {
+        if (bucket < subBuckets)
+            return bucket;
+        int shift = (bucket - subBuckets) / subBuckets;
+        long lowest = (long) (subBuckets + (bucket - subBuckets) % subBuckets) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
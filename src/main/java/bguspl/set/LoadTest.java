@@ -0,0 +1,196 @@
+package bguspl.set;
+
+import bguspl.set.ex.AiStrategy;
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.OracleStrategy;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.RandomStrategy;
+import bguspl.set.ex.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads the dealer with claims: synthetic players press keys at a fixed rate (through Player.keyPressed, like the
+ * keyboard) to claim sets, a given share of which are legal. Prints the percentiles of the time from the claim (the
+ * third token placed on the table) to the verdict reaching the player, and the sustained rate of verdicts, as the
+ * players record them in the games' metrics. The games run in real time, one after the other until the test is over,
+ * without a user interface, and share their metrics.
+ */
+public class LoadTest {
+
+    private static final double[] percentiles = {50, 90, 99, 99.9, 99.99};
+
+    private final Logger logger;
+    private final Config config;
+    private final Util util;
+
+    /**
+     * The metrics of all the games of the load test.
+     */
+    private final Metrics metrics;
+
+    public LoadTest(Logger logger, Config config, Util util) {
+        this.logger = logger;
+        this.config = config;
+        this.util = util;
+        metrics = new Metrics(config.players);
+    }
+
+    /**
+     * Plays games with synthetic players for the configured number of seconds and prints the results.
+     */
+    public void run() throws InterruptedException {
+        Level level = logger.getLevel();
+        logger.setLevel(Level.WARNING);
+
+        ScheduledExecutorService presses = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "load-test");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.loadTestMillis);
+        long loadNanos = 0;
+        int games = 0;
+        try {
+            while (System.nanoTime() < deadline) {
+                long start = System.nanoTime();
+                boolean finished = play(presses, deadline);
+                // the dealer does not check claims during the pause at the end of a game
+                loadNanos += System.nanoTime() - start
+                        - (finished ? TimeUnit.MILLISECONDS.toNanos(config.endGamePauseMillies) : 0);
+                games++;
+            }
+        } finally {
+            presses.shutdownNow();
+            logger.setLevel(level);
+        }
+
+        double seconds = loadNanos / 1e9;
+        Metrics.Snapshot snapshot = metrics.snapshot();
+        long claims = snapshot.total(Metrics.Counter.CLAIMS);
+        long goodSets = snapshot.total(Metrics.Counter.POINTS);
+        long badSets = snapshot.total(Metrics.Counter.PENALTIES);
+        long verdicts = goodSets + badSets;
+        LatencyHistogram latencies = snapshot.claimToVerdict;
+        System.out.printf("load test: %d players pressing %.1f keys/s each, %.0f%% legal claims, %.3fs in %d game(s)%n",
+                config.players, config.loadTestKeysPerSecond, config.loadTestValidFraction * 100, seconds, games);
+        System.out.printf("claims: %d made (%.1f/s), %d verdicts (%.1f/s): %d good, %d bad%n",
+                claims, claims / seconds, verdicts, verdicts / seconds, goodSets, badSets);
+        System.out.println("claim to verdict latency:");
+        System.out.printf("  %-10s %12s%n", "percentile", "micros");
+        for (double percentile : percentiles)
+            System.out.printf("  %-10s %12.1f%n", percentile, latencies.valueAt(percentile) / 1e3);
+        System.out.printf("  %-10s %12.1f%n", "max", latencies.max() / 1e3);
+    }
+
+    /**
+     * Plays a game with synthetic players until it is over or the deadline.
+     *
+     * @param presses  - runs the key presses of the synthetic players.
+     * @param deadline - the System.nanoTime the load test is over.
+     * @return - true iff the game finished by itself.
+     */
+    private boolean play(ScheduledExecutorService presses, long deadline) throws InterruptedException {
+        Env env = new Env(logger, config, new UserInterfaceHeadless(), util, new SystemClock(), metrics);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, true);
+
+        Thread dealerThread = new Thread(dealer::run, "dealer");
+        dealerThread.start();
+        long period = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / config.loadTestKeysPerSecond));
+        Random random = new Random();
+        List<ScheduledFuture<?>> drivers = new ArrayList<>();
+        for (Player player : players) {
+            long offset = (long) (random.nextDouble() * period);
+            drivers.add(presses.scheduleAtFixedRate(new SyntheticPlayer(table, player), offset, period, TimeUnit.NANOSECONDS));
+        }
+
+        dealerThread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        boolean finished = !dealerThread.isAlive();
+        for (ScheduledFuture<?> driver : drivers)
+            driver.cancel(false);
+        if (!finished) {
+            dealer.terminate();
+            dealerThread.join();
+        }
+        return finished;
+    }
+
+    /**
+     * Presses the keys of a player, one per run: removes the player's tokens that are not part of its next claim, then
+     * places the missing ones, and waits while the player is frozen (for the verdict, then the point or penalty). The
+     * claim is a legal set of the table (if there is one) with the configured probability, or random cards otherwise.
+     */
+    private class SyntheticPlayer implements Runnable {
+
+        private final Table table;
+        private final Player player;
+        private final Random random = new Random();
+        private final AiStrategy legal;
+        private final AiStrategy any;
+
+        private final int[] claim = new int[Table.tokenToSet];
+        private boolean chosen;
+
+        SyntheticPlayer(Table table, Player player) {
+            this.table = table;
+            this.player = player;
+            legal = new OracleStrategy(table, random);
+            any = new RandomStrategy(table, random);
+        }
+
+        @Override
+        public void run() {
+            if (player.getFreeze()) {
+                chosen = false; // choose the next claim once the verdict arrives
+                return;
+            }
+            if (!chosen && !choose())
+                return;
+
+            int slot = nextKey();
+            if (slot == Table.emptySlot) {
+                chosen = false;
+                return;
+            }
+            player.keyPressed(slot);
+        }
+
+        private boolean choose() {
+            chosen = random.nextDouble() < config.loadTestValidFraction && legal.choose(claim) || any.choose(claim);
+            return chosen;
+        }
+
+        /**
+         * @return - a token of the player to remove that is not part of the claim, or else a card of the claim to place
+         * a token on, or else emptySlot.
+         */
+        private int nextKey() {
+            for (int slot = 0; slot < config.tableSize; slot++)
+                if (!isClaimed(slot) && table.playerContainsToken(slot, player.id))
+                    return slot;
+            for (int slot : claim)
+                if (table.isCard(slot) && !table.playerContainsToken(slot, player.id))
+                    return slot;
+            return Table.emptySlot;
+        }
+
+        private boolean isClaimed(int slot) {
+            for (int claimed : claim)
+                if (claimed == slot)
+                    return true;
+            return false;
+        }
+    }
+}
@@ -45,6 +45,27 @@ public class Main {
         Config config = new Config(logger, "config.properties");
         Util util = new UtilImpl(config);
 
+        if (config.simulationGames > 0) {
+            try {
+                new Simulation(logger, config, util).run();
+            } catch (InterruptedException ignored) {
+            } finally {
+                ThreadLogger.logStop(logger, Thread.currentThread().getName());
+                for (Handler h : logger.getHandlers()) h.flush();
+            }
+            return;
+        }
+        if (config.loadTestMillis > 0) {
+            try {
+                new LoadTest(logger, config, util).run();
+            } catch (InterruptedException ignored) {
+            } finally {
+                ThreadLogger.logStop(logger, Thread.currentThread().getName());
+                for (Handler h : logger.getHandlers()) h.flush();
+            }
+            return;
+        }
+
         Player[] players = new Player[config.players];
         UserInterface ui = null;
         try {
@@ -65,6 +86,17 @@ public class Main {
         for (int i = 0; i < players.length; i++)
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
 
+        MetricsServer metrics = null;
+        if (config.metricsPort > 0) {
+            try {
+                metrics = new MetricsServer(env, dealer, players);
+                metrics.start();
+            } catch (IOException e) {
+                logger.severe("error starting the metrics endpoint: " + e.getMessage());
+                metrics = null;
+            }
+        }
+
         // start the dealer thread
         ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
         dealerThread.startWithLog();
@@ -77,6 +109,7 @@ public class Main {
         } finally {
             logger.severe("thanks for playing... it was fun!");
             System.out.println("Thanks for playing... it was fun!");
+            if (metrics != null) metrics.stop();
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
             for (Handler h : logger.getHandlers()) h.flush();
@@ -0,0 +1,157 @@
+package bguspl.set;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The metrics of a game, recorded by the dealer, the table and the players as it runs. Recording is lock-free and does
+ * not allocate, and snapshots may be taken at any time without stopping the game.
+ */
+public class Metrics {
+
+    /**
+     * The counters kept for every player.
+     */
+    public enum Counter { KEY_PRESSES, CLAIMS, POINTS, PENALTIES }
+
+    private static final int counters = Counter.values().length;
+
+    private final int players;
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * The real nanoseconds from a claim (the third token placed) to its verdict reaching the player.
+     */
+    private final LatencyHistogram claimToVerdict = new LatencyHistogram();
+
+    /**
+     * The real nanoseconds the dealer spends checking a claim in Table.checkSet (including taking the cards of a set).
+     */
+    private final LatencyHistogram setValidation = new LatencyHistogram();
+
+    /**
+     * The nanoseconds (of the game's clock) cards spend on the table.
+     */
+    private final LatencyHistogram cardTimeOnTable = new LatencyHistogram();
+
+    /**
+     * The number of times the dealer reshuffled because no set was collected in time.
+     */
+    private final AtomicLong reshuffles = new AtomicLong();
+
+    /**
+     * The counters of the players: counter c of player p is at p * counters + c.
+     */
+    private final AtomicLongArray playerCounters;
+
+    /**
+     * @param players - the number of players in the game.
+     */
+    public Metrics(int players) {
+        this.players = players;
+        playerCounters = new AtomicLongArray(players * counters);
+    }
+
+    /**
+     * Counts an event of a player.
+     *
+     * @param player  - the player.
+     * @param counter - the event.
+     */
+    public void count(int player, Counter counter) {
+        playerCounters.incrementAndGet(player * counters + counter.ordinal());
+    }
+
+    /**
+     * @param nanos - the time from a claim to its verdict.
+     */
+    public void verdict(long nanos) {
+        claimToVerdict.record(nanos);
+    }
+
+    /**
+     * @param nanos - the time the dealer spent checking a claim.
+     */
+    public void setValidated(long nanos) {
+        setValidation.record(nanos);
+    }
+
+    /**
+     * @param nanos - the time a card that was removed spent on the table.
+     */
+    public void cardRemoved(long nanos) {
+        cardTimeOnTable.record(nanos);
+    }
+
+    public void reshuffled() {
+        reshuffles.incrementAndGet();
+    }
+
+    /**
+     * @return - a copy of the metrics as they are now.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[playerCounters.length()];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = playerCounters.get(i);
+        return new Snapshot(System.nanoTime() - startNanos, claimToVerdict.snapshot(), setValidation.snapshot(),
+                cardTimeOnTable.snapshot(), reshuffles.get(), players, counts);
+    }
+
+    /**
+     * The metrics of a game at some point in time.
+     */
+    public static class Snapshot {
+
+        /**
+         * The real nanoseconds since the metrics were created.
+         */
+        public final long nanos;
+
+        public final LatencyHistogram claimToVerdict;
+        public final LatencyHistogram setValidation;
+        public final LatencyHistogram cardTimeOnTable;
+        public final long reshuffles;
+        public final int players;
+
+        private final long[] playerCounters;
+
+        private Snapshot(long nanos, LatencyHistogram claimToVerdict, LatencyHistogram setValidation,
+                         LatencyHistogram cardTimeOnTable, long reshuffles, int players, long[] playerCounters) {
+            this.nanos = nanos;
+            this.claimToVerdict = claimToVerdict;
+            this.setValidation = setValidation;
+            this.cardTimeOnTable = cardTimeOnTable;
+            this.reshuffles = reshuffles;
+            this.players = players;
+            this.playerCounters = playerCounters;
+        }
+
+        /**
+         * @param player  - the player.
+         * @param counter - the event.
+         * @return - the number of events of the player.
+         */
+        public long count(int player, Counter counter) {
+            return playerCounters[player * counters + counter.ordinal()];
+        }
+
+        /**
+         * @param counter - the event.
+         * @return - the number of events of all the players.
+         */
+        public long total(Counter counter) {
+            long total = 0;
+            for (int player = 0; player < players; player++)
+                total += count(player, counter);
+            return total;
+        }
+
+        /**
+         * @return - the reshuffles per minute of real time.
+         */
+        public double reshufflesPerMinute() {
+            return nanos == 0 ? 0 : reshuffles * 60e9 / nanos;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the metrics of a running game in the Prometheus text format at http://localhost:port/metrics: the players'
+ * counters, the claim to verdict and set validation latencies, reshuffles, frozen players, the cards left in the deck
+ * and the number of threads.
+ * A scrape only reads snapshots of lock-free counters and volatile fields, so it never takes a lock of the table and
+ * never holds up the dealer or the players.
+ */
+public class MetricsServer {
+
+    /**
+     * The upper bounds (in seconds) of the buckets of the latency histograms.
+     */
+    private static final double[] bucketSeconds = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5};
+
+    private static final String contentType = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final Env env;
+    private final Dealer dealer;
+    private final Player[] players;
+    private HttpServer server;
+
+    public MetricsServer(Env env, Dealer dealer, Player[] players) {
+        this.env = env;
+        this.dealer = dealer;
+        this.players = players;
+    }
+
+    /**
+     * Starts serving on the configured port of localhost, on a thread of its own.
+     *
+     * @throws IOException - if the port cannot be bound.
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), env.config.metricsPort), 0);
+        server.createContext("/metrics", this::handle);
+        server.start();
+        env.logger.info("serving metrics at http://localhost:" + port() + "/metrics");
+    }
+
+    /**
+     * @return - the port the endpoint is bound to (the configured one, or a free one if it is 0).
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops serving (scrapes in progress are dropped).
+     */
+    public void stop() {
+        if (server != null)
+            server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return - the metrics of the game as they are now, in the Prometheus text format.
+     */
+    public String scrape() {
+        Metrics.Snapshot snapshot = env.metrics.snapshot();
+        StringBuilder out = new StringBuilder(4096);
+
+        double seconds = snapshot.nanos / 1e9;
+        long claims = snapshot.total(Metrics.Counter.CLAIMS);
+        playerCounter(out, snapshot, "set_claims_total", "Sets claimed by the players", Metrics.Counter.CLAIMS);
+        header(out, "set_claims_per_second", "gauge", "Sets claimed per second since the game started");
+        sample(out, "set_claims_per_second", seconds == 0 ? 0 : claims / seconds);
+        playerCounter(out, snapshot, "set_key_presses_total", "Keys pressed by the players", Metrics.Counter.KEY_PRESSES);
+        playerCounter(out, snapshot, "set_points_total", "Points awarded to the players", Metrics.Counter.POINTS);
+        playerCounter(out, snapshot, "set_penalties_total", "Penalties given to the players", Metrics.Counter.PENALTIES);
+
+        histogram(out, "set_claim_to_verdict_seconds", "Time from a claim to its verdict reaching the player",
+                snapshot.claimToVerdict);
+        histogram(out, "set_validation_seconds", "Time the dealer spends checking a claim", snapshot.setValidation);
+
+        header(out, "set_reshuffles_total", "counter", "Reshuffles because no set was collected in time");
+        sample(out, "set_reshuffles_total", snapshot.reshuffles);
+
+        int frozen = 0;
+        for (Player player : players)
+            if (player != null && player.getFreeze())
+                frozen++;
+        header(out, "set_players_frozen", "gauge", "Players that are frozen now");
+        sample(out, "set_players_frozen", frozen);
+
+        header(out, "set_deck_cards", "gauge", "Cards left in the dealer's deck");
+        sample(out, "set_deck_cards", dealer.getDeckSize());
+
+        header(out, "set_threads", "gauge", "Live threads of the game process");
+        sample(out, "set_threads", ManagementFactory.getThreadMXBean().getThreadCount());
+        return out.toString();
+    }
+
+    private static void playerCounter(StringBuilder out, Metrics.Snapshot snapshot, String name, String help,
+                                      Metrics.Counter counter) {
+        header(out, name, "counter", help);
+        for (int player = 0; player < snapshot.players; player++)
+            sample(out, name, player, snapshot.count(player, counter));
+    }
+
+    /**
+     * Writes a histogram of nanoseconds in seconds, with cumulative buckets.
+     */
+    private static void histogram(StringBuilder out, String name, String help, LatencyHistogram histogram) {
+        header(out, name, "histogram", help);
+        for (double bound : bucketSeconds)
+            out.append(name).append("_bucket{le=\"").append(Double.toString(bound)).append("\"} ")
+                    .append(histogram.countAtOrBelow((long) (bound * 1e9))).append('\n');
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(histogram.count()).append('\n');
+        sample(out, name + "_sum", histogram.sum() / 1e9);
+        sample(out, name + "_count", histogram.count());
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, int player, long value) {
+        out.append(name).append("{player=\"").append(player + 1).append("\"} ").append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, long value) {
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, double value) {
+        out.append(name).append(' ').append(value).append('\n');
+    }
+}
@@ -0,0 +1,74 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Runs headless games on a game host, with computer players only and a virtual clock each, and prints the result of
+ * each game. The games are played by the same dealer, player and table code as a normal game, without a user interface
+ * and without waiting for the turn timeouts, freezes and table delays in real time.
+ */
+public class Simulation {
+
+    private final Logger logger;
+    private final Config config;
+    private final Util util;
+
+    public Simulation(Logger logger, Config config, Util util) {
+        this.logger = logger;
+        this.config = config;
+        this.util = util;
+    }
+
+    /**
+     * Simulates the configured number of games (as many at a time as the host's thread budget allows) and prints
+     * their results.
+     */
+    public void run() throws InterruptedException {
+        if (config.humanPlayers > 0)
+            logger.warning("simulating the " + config.humanPlayers + " human players as computer players");
+        Level level = logger.getLevel();
+        logger.setLevel(Level.WARNING);
+
+        long idleNanos = TimeUnit.MICROSECONDS.toNanos(config.simulationIdleMicros);
+        // a game per core at most: the virtual clocks skip ahead when the players do not get to run in time
+        int threadBudget = Math.min(config.hostThreadBudget,
+                Runtime.getRuntime().availableProcessors() * Game.threads(config));
+        GameHost host = new GameHost(logger, config, util, threadBudget, () -> new VirtualClock(idleNanos));
+        long start = System.nanoTime();
+        try {
+            int[] ids = new int[config.simulationGames];
+            for (int i = 0; i < ids.length; i++)
+                ids[i] = host.start();
+            for (int id : ids) {
+                Game game = host.query(id);
+                game.join();
+                System.out.println(result(game));
+                host.remove(id);
+            }
+        } finally {
+            host.shutdown();
+            logger.setLevel(level);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("simulated %d games in %.3fs (%.1f games/s)%n", config.simulationGames, seconds,
+                config.simulationGames / seconds);
+    }
+
+    /**
+     * @return - a line with the winners and scores of a simulated game, its virtual length and its real duration.
+     */
+    private static String result(Game game) {
+        int[] scores = game.scores();
+        int max = Arrays.stream(scores).max().orElse(0);
+        int[] winners = IntStream.range(0, scores.length).filter(i -> scores[i] == max).map(i -> i + 1).toArray();
+        return "game " + game.id + ": winner(s) " + Arrays.toString(winners)
+                + " scores " + Arrays.toString(scores)
+                + " virtual time " + game.millis() + "ms"
+                + " real time " + TimeUnit.NANOSECONDS.toMicros(game.realNanos()) + "us";
+    }
+}
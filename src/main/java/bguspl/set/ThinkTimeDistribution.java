@@ -0,0 +1,71 @@
+package bguspl.set;
+
+import java.util.Random;
+
+/**
+ * The distribution of the thinking times of human-like computer players, given by their mean and standard deviation.
+ * Samples are never negative.
+ */
+public enum ThinkTimeDistribution {
+
+    /**
+     * Always the mean.
+     */
+    FIXED {
+        @Override
+        public double sample(Random random, double mean, double deviation) {
+            return mean;
+        }
+    },
+
+    /**
+     * Uniform around the mean.
+     */
+    UNIFORM {
+        @Override
+        public double sample(Random random, double mean, double deviation) {
+            return Math.max(0, mean + deviation * Math.sqrt(3) * (2 * random.nextDouble() - 1));
+        }
+    },
+
+    /**
+     * Normal, cut off at zero.
+     */
+    NORMAL {
+        @Override
+        public double sample(Random random, double mean, double deviation) {
+            return Math.max(0, mean + deviation * random.nextGaussian());
+        }
+    },
+
+    /**
+     * Log-normal: mostly around the mean, with a long tail of slow reactions.
+     */
+    LOG_NORMAL {
+        @Override
+        public double sample(Random random, double mean, double deviation) {
+            if (mean <= 0)
+                return 0;
+            double sigmaSquared = Math.log(1 + (deviation * deviation) / (mean * mean));
+            return Math.exp(Math.log(mean) - sigmaSquared / 2 + Math.sqrt(sigmaSquared) * random.nextGaussian());
+        }
+    },
+
+    /**
+     * Exponential (memoryless; the deviation is the mean).
+     */
+    EXPONENTIAL {
+        @Override
+        public double sample(Random random, double mean, double deviation) {
+            return -mean * Math.log(1 - random.nextDouble());
+        }
+    };
+
+    /**
+     * @param random    - the source of randomness.
+     * @param mean      - the mean of the distribution.
+     * @param deviation - the standard deviation of the distribution.
+     * @return - a sample of the distribution.
+     */
+    public abstract double sample(Random random, double mean, double deviation);
+}
@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -31,8 +32,30 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Checks if three cards form a legal set, without allocating.
+     *
+     * @param card1 - the first card id.
+     * @param card2 - the second card id.
+     * @param card3 - the third card id.
+     * @return - true iff the three cards form a legal set.
+     */
+    boolean testSet(int card1, int card2, int card3);
+
+    /**
+     * Computes the card that completes two cards to a legal set of three (any two cards determine it uniquely).
+     *
+     * @param card1 - the first card id.
+     * @param card2 - the second card id.
+     * @return - the id of the third card of the set, or -1 if config.featureSize is not 3.
+     */
+    int completeSet(int card1, int card2);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
+     * Sets are listed in the lexicographic order of their cards' positions in the collection. Collections of at least
+     * config.parallelSearchThreshold cards are searched in parallel, in which case the sets returned when there are more
+     * than count of them are not necessarily the first ones.
      *
      * @param deck  - a collection of cards (may not include null objects).
      * @param count - the maximum number of sets to find.
@@ -40,6 +63,26 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds and returns up to count sets among the first size cards of an array (see findSets above).
+     *
+     * @param cards - an array of card ids.
+     * @param size  - the number of cards at the beginning of the array to search.
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSets(int[] cards, int size, int count);
+
+    /**
+     * Lazily enumerates the sets in the given collection of cards, in the same order as findSets.
+     * Sets are only searched for as the stream is consumed, so short-circuiting operations (e.g. limit, findFirst)
+     * stop the search, and a parallel stream splits the search by the position of the sets' first card.
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - a stream of integer arrays, each one contains the card ids of a legal set.
+     */
+    Stream<int[]> streamSets(List<Integer> deck);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -3,25 +3,61 @@ package bguspl.set;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The implementation of the UserInterface interface.
  */
 public class UtilImpl implements Util {
 
+    /**
+     * Mask of the low bit of every 2-bit counter in a packed card.
+     */
+    private static final long COUNTER_LOW_BITS = 0x5555555555555555L;
+
     private final Config config;
 
+    /**
+     * The features of every card id, precomputed once (features of card c are at [c * featureCount, (c + 1) * featureCount)).
+     */
+    private final int[] features;
+
+    /**
+     * The packed encoding of every card id (null if the features do not fit in a long).
+     * Each (feature, value) pair owns a 2-bit counter which is 1 iff the card has that value for that feature, so the sum
+     * of three packed cards counts how many of them share every value.
+     */
+    private final long[] packed;
+
     public UtilImpl(Config config) {
         this.config = config;
+
+        features = new int[config.deckSize * config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card) {
+            int id = card;
+            for (int i = config.featureCount - 1; i >= 0; --i) {
+                features[card * config.featureCount + i] = id % config.featureSize;
+                id /= config.featureSize;
+            }
+        }
+
+        if (2L * config.featureCount * config.featureSize <= Long.SIZE) {
+            packed = new long[config.deckSize];
+            for (int card = 0; card < config.deckSize; ++card)
+                for (int i = 0; i < config.featureCount; ++i)
+                    packed[card] |= 1L << (2 * (i * config.featureSize + features[card * config.featureCount + i]));
+        } else packed = null;
     }
 
     private void cardToFeatures(int card, int[] features) {
-        for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
-            card /= config.featureSize;
-        }
+        System.arraycopy(this.features, card * config.featureCount, features, 0, config.featureCount);
     }
 
     @Override
@@ -34,27 +70,31 @@ public class UtilImpl implements Util {
     @Override
     public int[][] cardsToFeatures(int[] cards) {
         int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        for (int i = 0; i < cards.length; ++i)
+            cardToFeatures(cards[i], features[i]);
         return features;
     }
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
+        if (cards.length == 3) return testSet(cards[0], cards[1], cards[2]);
+
+        int featureCount = config.featureCount;
+        for (int i = 0; i < featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
+            int first = features[cards[0] * featureCount + i];
 
             // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
+            for (int j = 1; j < cards.length; ++j)
+                if (first != features[cards[j] * featureCount + i]) {
                     sameSame = false;
                     break;
                 }
 
             // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
+            for (int j = 1; j < cards.length && butDifferent; ++j)
+                for (int k = j; k < cards.length; ++k)
+                    if (features[cards[j - 1] * featureCount + i] == features[cards[k] * featureCount + i]) {
                         butDifferent = false;
                         break;
                     }
@@ -64,18 +104,363 @@ public class UtilImpl implements Util {
         return true;
     }
 
+    @Override
+    public boolean testSet(int card1, int card2, int card3) {
+        if (packed == null) {
+            int featureCount = config.featureCount;
+            for (int i = 0; i < featureCount; ++i) {
+                int a = features[card1 * featureCount + i];
+                int b = features[card2 * featureCount + i];
+                int c = features[card3 * featureCount + i];
+                boolean sameSame = a == b && b == c, butDifferent = a != b && b != c && a != c;
+                if (!sameSame && !butDifferent) return false;
+            }
+            return true;
+        }
+
+        // every counter is 3 (all same), 1 (all different) or 0 - a counter of 2 means exactly two cards share a value
+        long sum = packed[card1] + packed[card2] + packed[card3];
+        return ((sum >>> 1) & ~sum & COUNTER_LOW_BITS) == 0;
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        int[] cards = new int[deck.size()];
+        for (int i = 0; i < cards.length; ++i)
+            cards[i] = deck.get(i);
+        return findSets(cards, cards.length, count);
+    }
+
+    @Override
+    public List<int[]> findSets(int[] cards, int size, int count) {
+        if (config.featureSize < 3 || config.featureSize > Long.SIZE) return findSetsByCombinations(cards, size, count);
+
+        int[] presence = presenceMap(cards, size);
+        if (size < config.parallelSearchThreshold)
+            return findSets(cards, size, presence, 0, size, count, null);
+
+        LinkedList<int[]> sets = ForkJoinPool.commonPool().invoke(new SearchTask(this, cards, size, presence, 0, size, count, new AtomicInteger()));
+        while (sets.size() > count) sets.removeLast();
+        return sets;
+    }
+
+    /**
+     * Finds the sets whose first card (in deck order) is at an index in [from, to).
+     *
+     * @param found - the number of sets found by all the searches sharing it, which stop once it reaches count
+     *              (null for a single sequential search).
+     */
+    private LinkedList<int[]> findSets(int[] cards, int size, int[] presence, int from, int to, int count, AtomicInteger found) {
+        if (config.featureSize == 3) return findSetsByPairs(cards, size, presence, from, to, count, found);
+        return findSetsByCompletion(cards, size, presence, from, to, count, found);
+    }
+
+    /**
+     * Adds a set that was found and checks whether the search should stop.
+     *
+     * @return - true iff count sets have been found.
+     */
+    private static boolean addSet(LinkedList<int[]> sets, int[] set, int count, AtomicInteger found) {
+        sets.add(set);
+        return (found == null ? sets.size() : found.incrementAndGet()) >= count;
+    }
+
+    /**
+     * A fork/join search that splits the range of first card indices in halves and concatenates the sets found by the
+     * halves in order. The halves share a counter of found sets, so they all stop once count sets were found.
+     */
+    private static class SearchTask extends RecursiveTask<LinkedList<int[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The number of first card indices below which a range is searched sequentially.
+         */
+        private static final int GRAIN = 8;
+
+        private final transient UtilImpl util; // tasks are never serialized
+        private final int[] cards;
+        private final int size;
+        private final int[] presence;
+        private final int from;
+        private final int to;
+        private final int count;
+        private final AtomicInteger found;
+
+        SearchTask(UtilImpl util, int[] cards, int size, int[] presence, int from, int to, int count, AtomicInteger found) {
+            this.util = util;
+            this.cards = cards;
+            this.size = size;
+            this.presence = presence;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+            this.found = found;
+        }
+
+        @Override
+        protected LinkedList<int[]> compute() {
+            if (found.get() >= count) return new LinkedList<>();
+            if (to - from <= GRAIN) return util.findSets(cards, size, presence, from, to, count, found);
+
+            // later first cards have fewer cards after them, so the split point is biased towards the end
+            int middle = from + (to - from) / 3;
+            SearchTask right = new SearchTask(util, cards, size, presence, middle, to, count, found);
+            right.fork();
+            LinkedList<int[]> sets = new SearchTask(util, cards, size, presence, from, middle, count, found).compute();
+            sets.addAll(right.join());
+            return sets;
+        }
+    }
+
+    /**
+     * Maps every card id in the first size cards to its index in the array plus one (0 for cards that are not present).
+     */
+    private int[] presenceMap(int[] cards, int size) {
+        int[] presence = new int[config.deckSize];
+        for (int i = 0; i < size; ++i)
+            presence[cards[i]] = i + 1;
+        return presence;
+    }
+
+    @Override
+    public int completeSet(int card1, int card2) {
+        if (config.featureSize != 3) return -1;
+
+        int featureCount = config.featureCount;
+        int card = 0;
+        for (int i = 0; i < featureCount; ++i)
+            card = card * 3 + (6 - features[card1 * featureCount + i] - features[card2 * featureCount + i]) % 3;
+        return card;
+    }
+
+    /**
+     * Finds sets of three cards by completing every pair and looking the third card up in the presence map.
+     * Only the completion that comes after the pair in the deck is taken, so the sets are found in the same
+     * (lexicographic) order as findSetsByCombinations.
+     */
+    private LinkedList<int[]> findSetsByPairs(int[] cards, int size, int[] presence, int from, int to, int count, AtomicInteger found) {
+        LinkedList<int[]> sets = new LinkedList<>();
+
+        for (int i = from; i < to; ++i) {
+            if (found != null && found.get() >= count) return sets;
+            for (int j = i + 1; j < size; ++j) {
+                int k = presence[completeSet(cards[i], cards[j])] - 1;
+                if (k > j && addSet(sets, sorted(cards[i], cards[j], cards[k]), count, found)) return sets;
+            }
+        }
+        return sets;
+    }
+
+    private static int[] sorted(int a, int b, int c) {
+        if (a > b) { int t = a; a = b; b = t; }
+        if (b > c) { int t = b; b = c; c = t; }
+        if (a > b) { int t = a; a = b; b = t; }
+        return new int[]{a, b, c};
+    }
+
+    /**
+     * Finds sets of featureSize cards by extending prefixes of featureSize - 1 cards that can still be completed,
+     * and completing each of them (see CompletionCursor).
+     */
+    private LinkedList<int[]> findSetsByCompletion(int[] cards, int size, int[] presence, int from, int to, int count, AtomicInteger found) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        CompletionCursor cursor = new CompletionCursor(cards, size, presence, from, to);
+        while (cursor.advance(count, found))
+            if (addSet(sets, cursor.set(), count, found)) return sets;
+        return sets;
+    }
+
+    /**
+     * Walks the sets whose first card is at an index in [from, to) by extending prefixes of featureSize - 1 cards that
+     * can still be completed, and completing each of them: a feature which is the same in the whole prefix must stay
+     * the same, and a feature which is different in the whole prefix must take the single missing value (the sum of all
+     * values minus the sum of the prefix values). Prefixes are visited in lexicographic order, so the sets are found in
+     * the same order as findSetsByCombinations.
+     */
+    private class CompletionCursor {
+
+        private final int[] cards;
+        private final int size;
+        private final int[] presence;
+        private int to;
+
+        private final int[] prefix;
+        private final long[][] seen; // seen[d][i] - the values of feature i among the first d prefix cards
+        private final int[][] sums;  // sums[d][i] - the sum of feature i among the first d prefix cards
+        private int depth;
+        private int last;            // the index of the card completing the current prefix
+
+        CompletionCursor(int[] cards, int size, int[] presence, int from, int to) {
+            int r = config.featureSize;
+            this.cards = cards;
+            this.size = size;
+            this.presence = presence;
+            this.to = to;
+            prefix = new int[r - 1];
+            seen = new long[r][config.featureCount];
+            sums = new int[r][config.featureCount];
+            prefix[0] = from - 1;
+            depth = size < r ? -1 : 0;
+        }
+
+        /**
+         * Moves to the next set.
+         *
+         * @param found - if not null, the search stops before the next first card once it reaches count.
+         * @return - true iff there is a next set, false if the search is over.
+         */
+        boolean advance(int count, AtomicInteger found) {
+            int r = config.featureSize;
+            int featureCount = config.featureCount;
+            int valuesSum = r * (r - 1) / 2;
+
+            while (depth >= 0) {
+                // advance the card at the current depth to the next one that keeps the prefix completable
+                int next = ++prefix[depth];
+                if (next > size - r + depth || (depth == 0 && next >= to)) {
+                    --depth;
+                    continue;
+                }
+                if (depth == 0 && found != null && found.get() >= count) {
+                    depth = -1;
+                    return false;
+                }
+
+                boolean completable = true;
+                int card = cards[next];
+                for (int i = 0; i < featureCount && completable; ++i) {
+                    int value = features[card * featureCount + i];
+                    long values = seen[depth][i] | (1L << value);
+                    int distinct = Long.bitCount(values);
+                    completable = distinct == 1 || distinct == depth + 1;
+                    seen[depth + 1][i] = values;
+                    sums[depth + 1][i] = sums[depth][i] + value;
+                }
+                if (!completable) continue;
+
+                if (depth < r - 2) {
+                    prefix[depth + 1] = next;
+                    ++depth;
+                    continue;
+                }
+
+                int completion = 0;
+                for (int i = 0; i < featureCount; ++i) {
+                    int value = Long.bitCount(seen[r - 1][i]) == 1
+                            ? features[card * featureCount + i]
+                            : valuesSum - sums[r - 1][i];
+                    completion = completion * r + value;
+                }
+
+                last = presence[completion] - 1;
+                if (last > next) return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return - the sorted card ids of the current set.
+         */
+        int[] set() {
+            int r = config.featureSize;
+            int[] set = new int[r];
+            for (int d = 0; d < r - 1; ++d)
+                set[d] = cards[prefix[d]];
+            set[r - 1] = cards[last];
+            Arrays.sort(set);
+            return set;
+        }
+
+        /**
+         * Splits off the last part of the first card indices that were not reached yet.
+         *
+         * @return - a cursor over the split off indices, or null if there are fewer than twice the minimum of them.
+         */
+        CompletionCursor split(int minimum) {
+            if (depth < 0) return null;
+            int from = prefix[0] + 1;
+            if (to - from < 2 * minimum) return null;
+            int middle = from + (to - from) / 3;
+            CompletionCursor split = new CompletionCursor(cards, size, presence, middle, to);
+            to = middle;
+            return split;
+        }
+
+        long estimateSize() {
+            return depth < 0 ? 0 : to - prefix[0];
+        }
+    }
+
+    @Override
+    public Stream<int[]> streamSets(List<Integer> deck) {
+        int[] cards = new int[deck.size()];
+        for (int i = 0; i < cards.length; ++i)
+            cards[i] = deck.get(i);
+
+        if (config.featureSize < 3 || config.featureSize > Long.SIZE)
+            return findSetsByCombinations(cards, cards.length, Integer.MAX_VALUE).stream();
+        return StreamSupport.stream(new SetSpliterator(new CompletionCursor(cards, cards.length, presenceMap(cards, cards.length), 0, cards.length)), false);
+    }
+
+    /**
+     * A spliterator over the sets found by a completion cursor, which finds them on demand and splits by first card.
+     */
+    private class SetSpliterator implements Spliterator<int[]> {
+
+        /**
+         * The number of first card indices below which a spliterator is not split anymore.
+         */
+        private static final int GRAIN = 8;
+
+        private CompletionCursor cursor;
+
+        SetSpliterator(CompletionCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super int[]> action) {
+            if (!cursor.advance(Integer.MAX_VALUE, null)) return false;
+            action.accept(cursor.set());
+            return true;
+        }
+
+        @Override
+        public Spliterator<int[]> trySplit() {
+            // the split off spliterator must cover the first sets, so it takes over the cursor that is under way
+            CompletionCursor rest = cursor.split(GRAIN);
+            if (rest == null) return null;
+            SetSpliterator first = new SetSpliterator(cursor);
+            cursor = rest;
+            return first;
+        }
+
+        @Override
+        public long estimateSize() {
+            return cursor.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * Finds sets by testing every featureSize-combination of the first size cards in lexicographic order.
+     */
+    private List<int[]> findSetsByCombinations(int[] deck, int size, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
+        int n = size;
         int r = config.featureSize;
         int[] combination = new int[r];
 
         for (int i = 0; i < r; ++i)
             combination[i] = i;
 
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
+        while (combination[r - 1] < n) {
+            int[] cards = Arrays.stream(combination).map(i -> deck[i]).sorted().toArray();
             if (testSet(cards)) {
                 sets.add(cards);
                 if (sets.size() >= count) return sets;
@@ -0,0 +1,129 @@
+package bguspl.set;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.LongPredicate;
+
+/**
+ * A virtual clock for simulating games faster than real time.
+ * Time only moves when the thread that owns the clock (the dealer) sleeps, or waits for other threads while nothing
+ * happens: instead of waiting out the timeout it polls for a short real time and then skips ahead to the timeout, or to
+ * the first scheduled task before it. Scheduled tasks run on the owner's thread when their time comes.
+ */
+public class VirtualClock implements Clock {
+
+    /**
+     * The virtual time in nanoseconds.
+     */
+    private volatile long now;
+
+    /**
+     * The real nanoseconds to wait for other threads before skipping ahead.
+     */
+    private final long idleNanos;
+
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    private long timersAdded;
+
+    /**
+     * @param idleNanos - the real nanoseconds to wait for other threads before skipping ahead.
+     */
+    public VirtualClock(long idleNanos) {
+        this.idleNanos = idleNanos;
+    }
+
+    @Override
+    public long millis() {
+        return now / 1_000_000L;
+    }
+
+    @Override
+    public long nanos() {
+        return now;
+    }
+
+    @Override
+    public void sleep(long millis) {
+        long until = now + millis * 1_000_000L;
+        while (runNextTimer(until)) {
+            // run every task due until then, in order
+        }
+        now = Math.max(now, until);
+    }
+
+    @Override
+    public Future<?> schedule(Runnable task, long delayNanos) {
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        synchronized (timers) {
+            timers.add(new Timer(now + Math.max(0, delayNanos), timersAdded++, future));
+        }
+        return future;
+    }
+
+    @Override
+    public boolean await(long timeoutNanos, LongPredicate wait) {
+        // the other threads run in real time: poll for the event (yielding to them) for a short real time
+        long idleDeadline = System.nanoTime() + Math.min(timeoutNanos, idleNanos);
+        do {
+            if (wait.test(0))
+                return true;
+            Thread.yield();
+        } while (System.nanoTime() - idleDeadline < 0);
+
+        // nothing happened: skip ahead to the timeout, or stop at the first task scheduled before it
+        long until = now + timeoutNanos;
+        if (!runNextTimer(until))
+            now = Math.max(now, until);
+        return false;
+    }
+
+    /**
+     * Runs the first scheduled task, and all the other ones scheduled to the same time, if it is due until the given
+     * time (the clock is moved to its time).
+     *
+     * @return - true iff a task was run.
+     */
+    private boolean runNextTimer(long until) {
+        Timer first;
+        synchronized (timers) {
+            first = timers.peek();
+            if (first == null || first.due > until)
+                return false;
+            timers.poll();
+        }
+        now = Math.max(now, first.due);
+        first.task.run();
+
+        while (true) {
+            Timer next;
+            synchronized (timers) {
+                next = timers.peek();
+                if (next == null || next.due > now)
+                    return true;
+                timers.poll();
+            }
+            next.task.run();
+        }
+    }
+
+    private static class Timer implements Comparable<Timer> {
+
+        final long due;
+        final long order; // tasks scheduled to the same time run in the order they were scheduled
+        final FutureTask<Void> task;
+
+        Timer(long due, long order, FutureTask<Void> task) {
+            this.due = due;
+            this.order = order;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+            if (due != other.due)
+                return Long.compare(due, other.due);
+            return Long.compare(order, other.order);
+        }
+    }
+}
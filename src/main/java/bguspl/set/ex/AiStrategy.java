@@ -0,0 +1,48 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Random;
+
+/**
+ * How an event driven computer player chooses the cards it claims when it reacts to a change.
+ * Strategies are called from a single thread at a time and must not allocate once created, so that many computer
+ * players can load a game for a long time.
+ */
+public interface AiStrategy {
+
+    /**
+     * Chooses the cards to claim.
+     *
+     * @param claim - filled with the slots of the Table.tokenToSet cards to claim.
+     * @return - true iff cards were chosen.
+     */
+    boolean choose(int[] claim);
+
+    /**
+     * @return - the nanoseconds the player thinks before it reacts, on top of its reaction time.
+     */
+    default long thinkNanos() {
+        return 0;
+    }
+
+    /**
+     * Creates the strategy of a computer player, as configured.
+     *
+     * @param env    - the environment object.
+     * @param table  - the table the player plays on.
+     * @param random - the player's source of randomness.
+     * @return - the strategy.
+     */
+    static AiStrategy create(Env env, Table table, Random random) {
+        switch (env.config.aiStrategy) {
+            case ORACLE:
+                return new OracleStrategy(table, random);
+            case HUMAN_LIKE:
+                return new HumanLikeStrategy(table, random, env.config.aiThinkDistribution, env.config.aiThinkMeanMillis,
+                        env.config.aiThinkDeviationMillis);
+            default:
+                return new RandomStrategy(table, random);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free, multi-producer single-consumer ring buffer of set claims.
+ * Every cell has a sequence number: a producer claims a cell by advancing the tail with a CAS, writes the claim into
+ * primitive arrays and publishes it by setting the cell's sequence, and the consumer (the dealer) takes published cells
+ * in order and recycles them. Nothing is allocated per claim.
+ *
+ * @inv capacity is a power of 2
+ */
+public class ClaimRing {
+
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * The sequence of each cell: position when free for the producer of that position, position + 1 when published.
+     */
+    private final AtomicLongArray sequences;
+
+    private final int[] players;
+    private final int[] slots;  // Table.tokenToSet slots per cell
+    private final int[] cards;  // Table.tokenToSet cards per cell
+    private final long[] stamps;
+
+    /**
+     * The next position producers write to.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The next position the consumer reads from (only accessed by the consumer).
+     */
+    private long head;
+
+    /**
+     * The consumer thread while it waits for claims (null otherwise).
+     */
+    private volatile Thread waiter;
+
+    /**
+     * True iff the consumer was asked to stop waiting.
+     */
+    private volatile boolean woken;
+
+    /**
+     * @param minCapacity - the minimal number of claims the ring must hold (rounded up to a power of 2).
+     */
+    public ClaimRing(int minCapacity) {
+        capacity = Integer.highestOneBit(Math.max(2, minCapacity) * 2 - 1);
+        mask = capacity - 1;
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+        players = new int[capacity];
+        slots = new int[capacity * Table.tokenToSet];
+        cards = new int[capacity * Table.tokenToSet];
+        stamps = new long[capacity];
+    }
+
+    /**
+     * Adds a claim to the ring (called by the players' threads).
+     *
+     * @param player - the id of the player claiming a set.
+     * @param slots  - the slots of the player's tokens.
+     * @param cards  - the cards in these slots.
+     * @param stamp  - the System.nanoTime() at which the claim was made.
+     * @return - true iff the claim was added, false if the ring is full.
+     */
+    public boolean offer(int player, int[] slots, int[] cards, long stamp) {
+        long position;
+        while (true) {
+            position = tail.get();
+            long difference = sequences.get((int) position & mask) - position;
+            if (difference < 0)
+                return false; // the consumer did not free this cell yet
+            if (difference == 0 && tail.compareAndSet(position, position + 1))
+                break;
+        }
+
+        int cell = (int) position & mask;
+        players[cell] = player;
+        System.arraycopy(slots, 0, this.slots, cell * Table.tokenToSet, Table.tokenToSet);
+        System.arraycopy(cards, 0, this.cards, cell * Table.tokenToSet, Table.tokenToSet);
+        stamps[cell] = stamp;
+        sequences.set(cell, position + 1);
+
+        Thread consumer = waiter;
+        if (consumer != null)
+            LockSupport.unpark(consumer);
+        return true;
+    }
+
+    /**
+     * @return - true iff there is a published claim for the consumer to take.
+     */
+    public boolean isReady() {
+        return sequences.get((int) head & mask) == head + 1;
+    }
+
+    /**
+     * Waits until a claim is published, the timeout expires or the consumer is woken up (called by the consumer).
+     *
+     * @param timeoutNanos - the maximum number of nanoseconds to wait.
+     * @return - true iff there is a claim to take.
+     */
+    public boolean await(long timeoutNanos) {
+        if (isReady() || timeoutNanos <= 0 || woken) {
+            woken = false;
+            return isReady();
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        waiter = Thread.currentThread();
+        try {
+            long remaining = timeoutNanos;
+            while (!isReady() && !woken && remaining > 0 && !Thread.interrupted()) {
+                LockSupport.parkNanos(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        } finally {
+            waiter = null;
+            woken = false;
+        }
+        return isReady();
+    }
+
+    /**
+     * Wakes up the consumer if it is waiting in await.
+     */
+    public void wakeUp() {
+        woken = true;
+        Thread consumer = waiter;
+        if (consumer != null)
+            LockSupport.unpark(consumer);
+    }
+
+    /**
+     * Moves all the published claims into the given arrays (called by the consumer).
+     *
+     * @return - the number of claims taken (at most the length of players).
+     */
+    public int drainTo(int[] players, int[] slots, int[] cards, long[] stamps) {
+        int taken = 0;
+        while (taken < players.length && isReady()) {
+            int cell = (int) head & mask;
+            players[taken] = this.players[cell];
+            System.arraycopy(this.slots, cell * Table.tokenToSet, slots, taken * Table.tokenToSet, Table.tokenToSet);
+            System.arraycopy(this.cards, cell * Table.tokenToSet, cards, taken * Table.tokenToSet, Table.tokenToSet);
+            stamps[taken] = this.stamps[cell];
+            sequences.set(cell, head + capacity);
+            head++;
+            taken++;
+        }
+        return taken;
+    }
+
+    /**
+     * Discards all the published claims (called by the consumer).
+     */
+    public void clear() {
+        while (isReady()) {
+            sequences.set((int) head & mask, head + capacity);
+            head++;
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -3,6 +3,7 @@ package bguspl.set.ex;
 import bguspl.set.Config;
 import bguspl.set.Env;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -36,16 +37,26 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final DrawPile deck;
+
+    /**
+     * inPlay[card] is true iff the card is still in the game (i.e. in the deck or on the table).
+     */
+    private final boolean[] inPlay;
+
+    /**
+     * The number of legal sets among the cards in play (-1 if it has to be recounted).
+     * With featureSize 3 it is kept exact by leavePlay, otherwise it is recounted after every collected set.
+     */
+    private long setsInPlay;
 
     /**
      * True iff game should be terminated due to an external event.
      */
     private volatile boolean terminate;
     private volatile boolean outTerminate;
-    protected volatile boolean sleeps;
 
     private boolean wasSet;
 
@@ -60,10 +71,12 @@ public class Dealer implements Runnable {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        deck = new DrawPile(env.config.deckSize);
+        inPlay = new boolean[env.config.deckSize];
+        Arrays.fill(inPlay, true);
+        setsInPlay = countSetsInFullDeck();
         wasSet=false;
         outTerminate = false;
-        sleeps = false;
     }
 
     /**
@@ -74,12 +87,8 @@ public class Dealer implements Runnable {
         env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
 
         cuThread = Thread.currentThread();
-        Thread [] p  =  new Thread[env.config.players];
-
-        for (int i = 0; i < p.length; i++) {
-            p[i] = new Thread(players[i]);
-            p[i].start();
-        }
+        for (Player player : players)
+            player.start();
 
         while (!shouldFinish()) {
             placeCardsOnTable();
@@ -90,18 +99,18 @@ public class Dealer implements Runnable {
             removeCardsFromTable();
         }
         announceWinners();
+        for (Player player : players)
+            try { player.join(); } catch (InterruptedException ignored) {}
         env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
 
     public void freezeAllPlayers()
     {
-        synchronized(table.lock){
         table.isInShuflle = true;
         for (int i = 0; i < players.length; i++) {
             players[i].freeze();
         }
-        }
     }
 
     public Thread getCuThread()
@@ -111,22 +120,22 @@ public class Dealer implements Runnable {
 
     private void unfreezeAllPlayers()
     {
-        synchronized(table.lock){
         for (int i = 0; i < players.length; i++) {
             players[i].unfreeze();
         }
         table.isInShuflle = false;
-        }
     }
     /**
      * The inner loop of the dealer thread that runs as long as the countdown did not time out.
      */
     private void timerLoop() {
         updateTimerDisplay(true);
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        while (!terminate && env.clock.millis() < reshuffleTime) {
             sleepUntilWokenOrTimeout();
             updateTimerDisplay(false);
         }
+        if (!terminate)
+            env.metrics.reshuffled();
     }
 
     /**
@@ -139,6 +148,7 @@ public class Dealer implements Runnable {
         }
         terminate = true;
         outTerminate = true;
+        table.wakeDealer();
         // Thread.currentThread().interrupt();
     }
 
@@ -148,7 +158,63 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !anySetInPlay();
+    }
+
+    /**
+     * Counts the legal sets in a full deck: every feature of a set is either the same in all of its featureSize cards
+     * (featureSize choices) or different in all of them (featureSize! orders), excluding the tuples that repeat the
+     * same card, and the order of the cards does not matter.
+     *
+     * @return - the number of legal sets in the full deck, or -1 if it is too large to count (it is then recounted).
+     */
+    long countSetsInFullDeck() {
+        int k = env.config.featureSize;
+        if (k < Table.tokenToSet) return -1;
+        try {
+            long orders = 1;
+            for (int i = 2; i <= k; i++)
+                orders = Math.multiplyExact(orders, i);
+            long tuples = 1, repeated = 1;
+            for (int i = 0; i < env.config.featureCount; i++) {
+                tuples = Math.multiplyExact(tuples, orders + k);
+                repeated = Math.multiplyExact(repeated, k);
+            }
+            return (tuples - repeated) / orders;
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return - true iff there is a legal set among the cards in play.
+     *
+     * @pre - all the cards in play are in the deck (i.e. the table is clear).
+     */
+    private boolean anySetInPlay() {
+        if (setsInPlay < 0)
+            setsInPlay = env.util.findSets(deck.cards(), deck.size(), 1).size(); // only tells whether there is a set, until recounted again
+        return setsInPlay > 0;
+    }
+
+    /**
+     * Takes a collected card out of play and removes the sets it formed from the count of sets in play.
+     *
+     * @param card - the card that left the game.
+     */
+    void leavePlay(int card) {
+        inPlay[card] = false;
+        if (env.config.featureSize != Table.tokenToSet) {
+            setsInPlay = -1;
+            return;
+        }
+        long sets = 0;
+        for (int other = 0; other < inPlay.length; other++) {
+            if (!inPlay[other]) continue;
+            int third = env.util.completeSet(card, other);
+            if (third > other && inPlay[third]) sets++;
+        }
+        setsInPlay -= sets;
     }
 
     /**
@@ -156,14 +222,19 @@ public class Dealer implements Runnable {
      */
     private void removeCardsFromTable() {
         // TODO implement
-        synchronized(table.lock)
-        {
-            // table.isInShuflle = true;
+        long eventStart = GameEvents.start(GameEvents.reshuffleEnabled);
+        int cards = 0;
+        table.lockAllSlots();
+        try {
             List<Integer> tableDeck = table.removeCards();
             for (int i = 0; i < tableDeck.size(); i++) {
                 deck.add(tableDeck.get(i));
             }
+            cards = tableDeck.size();
+        } finally {
+            table.unlockAllSlots();
         }
+        GameEvents.reshuffle(cards, !terminate, eventStart);
     }
 
     /**
@@ -171,34 +242,39 @@ public class Dealer implements Runnable {
      */
     public void placeCardsOnTable() {
         // TODO implement
-        synchronized(table.lock){
-        Collections.shuffle(deck);
-            List<Integer> temp = new ArrayList<Integer>();
-            for (int i = 0; i < env.config.tableSize & i<deck.size(); i++) {
-                table.placeCard(deck.get(i), i);
-                temp.add(deck.get(i));
-            }
-            int size = deck.size();
-            for (int i = 0; i < env.config.tableSize & i<size; i++) 
-            {
-                deck.remove(temp.get(i));
+        table.lockAllSlots();
+        try {
+            for (int i = 0; i < env.config.tableSize & !deck.isEmpty(); i++) {
+                table.placeCard(deck.draw(), i);
             }
+        } finally {
+            table.unlockAllSlots();
         }
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * @return - the number of milliseconds until the countdown display has to change or the turn times out.
+     */
+    private long millisUntilNextTick() {
+        long remaining = reshuffleTime - env.clock.millis();
+        if (remaining <= 0)
+            return 0;
+        if (env.config.simulationGames > 0)
+            return remaining; // a simulated game has no countdown display to update
+        if (remaining <= Table.tenSec)
+            return Math.min(remaining, Table.warningTick);
+        long tick = remaining % Table.oneSec;
+        return tick == 0 ? Table.oneSec : tick;
+    }
+
+    /**
+     * Sleep until a player claims a set or the countdown display has to be updated, and check the claim (if any).
      */
     private void sleepUntilWokenOrTimeout() {
 
-        try {
-            sleeps = true;
-            Thread.sleep(Table.dealerTurnSleep);
-        } catch (InterruptedException ignored) {}
-        sleeps = false;
-        
-            
-        int [] check=table.checkSet();
+        long eventStart = GameEvents.start(GameEvents.dealerWakeupEnabled);
+        int [] check=table.checkSet(millisUntilNextTick());
+        GameEvents.dealerWakeup(check[Table.firstTupleElm] != Table.notSetToCheck, eventStart);
         wasSet = false;
 
         if(check[Table.firstTupleElm] != Table.notSetToCheck)
@@ -207,19 +283,16 @@ public class Dealer implements Runnable {
             {
                 wasSet = true;
                 players[check[Table.secondTupleElm]].setFlag(Table.goodSet);
+                for (int card : table.getLastSet())
+                    leavePlay(card);
                 
                 if(deck.size()>=Table.tokenToSet)
                 {
                     int [] cards =new int[Table.tokenToSet] ;
 
-                    cards[Table.firstCard] = deck.get(Table.firstCard);
-                    deck.remove(Table.firstCard);
-
-                    cards[Table.secondCard] = deck.get(Table.firstCard);
-                    deck.remove(Table.firstCard);
-
-                    cards[Table.thirdCard] = deck.get(Table.firstCard);
-                    deck.remove(Table.firstCard);
+                    cards[Table.firstCard] = deck.draw();
+                    cards[Table.secondCard] = deck.draw();
+                    cards[Table.thirdCard] = deck.draw();
 
 
                     table.place_3_cards(cards);
@@ -251,13 +324,13 @@ public class Dealer implements Runnable {
         // TODO implement
         if(reset|| wasSet)
         {
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis ;//+ env.config.delay;
-            env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), false);
+            reshuffleTime = env.clock.millis() + env.config.turnTimeoutMillis ;//+ env.config.delay;
+            env.ui.setCountdown(reshuffleTime - env.clock.millis(), false);
         }
         else 
         {
-            Boolean tenSec = reshuffleTime - System.currentTimeMillis() <=Table.tenSec; 
-            env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), tenSec);
+            Boolean tenSec = reshuffleTime - env.clock.millis() <=Table.tenSec; 
+            env.ui.setCountdown(reshuffleTime - env.clock.millis(), tenSec);
             wasSet = false;
         }        
     }
@@ -301,14 +374,25 @@ public class Dealer implements Runnable {
         env.ui.announceWinner(out);
 
         try {
-            Thread.sleep(env.config.endGamePauseMillies);
+            env.clock.sleep(env.config.endGamePauseMillies);
         } catch (InterruptedException ignored) {}
 
         env.ui.dispose();
     }
 
+    /**
+     * @return - the number of cards left in the deck (may be called by any thread).
+     */
     public int getDeckSize()
     {
         return deck.size();
     }
+
+    /**
+     * @return - the number of legal sets among the cards in play, or -1 if it has to be recounted.
+     */
+    long getSetsInPlay()
+    {
+        return setsInPlay;
+    }
 }
@@ -0,0 +1,77 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class holds the dealer's pile of cards as a primitive array of card ids.
+ * Cards are drawn at random by a partial Fisher-Yates shuffle: every draw swaps a uniformly chosen card with the last
+ * card of the pile and takes it from the end, so there is no need to shuffle the whole pile in advance.
+ *
+ * @inv 0 <= size <= cards.length
+ */
+public class DrawPile {
+
+    /**
+     * The card ids in the pile (only the first size entries are valid).
+     */
+    private final int[] cards;
+
+    /**
+     * The number of cards in the pile (volatile, so other threads may read it while the dealer draws).
+     */
+    private volatile int size;
+
+    /**
+     * Creates a pile that holds all the cards of a deck.
+     *
+     * @param deckSize - the number of cards in the deck (card ids are 0 to deckSize - 1).
+     */
+    public DrawPile(int deckSize) {
+        cards = new int[deckSize];
+        for (int i = 0; i < deckSize; i++)
+            cards[i] = i;
+        size = deckSize;
+    }
+
+    /**
+     * Draws a random card from the pile.
+     *
+     * @return - the card id drawn.
+     *
+     * @pre - size > 0
+     * @post - size == @pre(size) - 1
+     */
+    public int draw() {
+        int i = ThreadLocalRandom.current().nextInt(size);
+        int card = cards[i];
+        cards[i] = cards[--size];
+        cards[size] = card;
+        return card;
+    }
+
+    /**
+     * Returns a card to the pile.
+     *
+     * @param card - the card id to return.
+     *
+     * @post - size == @pre(size) + 1
+     */
+    public void add(int card) {
+        cards[size++] = card;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return - the array backing the pile (only its first size() entries are cards in the pile).
+     */
+    public int[] cards() {
+        return cards;
+    }
+}
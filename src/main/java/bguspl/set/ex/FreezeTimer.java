@@ -0,0 +1,104 @@
+package bguspl.set.ex;
+
+import bguspl.set.Clock;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Runs the point and penalty freezes of the players on the scheduler of the game's clock.
+ * A single thread (shared by all the games with the wall clock) displays the remaining time of every running freeze
+ * once per second and releases each player at the exact deadline of its freeze, instead of every player thread
+ * sleeping in one second steps.
+ */
+public class FreezeTimer {
+
+    private static final long tickNanos = TimeUnit.MILLISECONDS.toNanos(Table.oneSec);
+
+    private final Clock clock;
+
+    /**
+     * @param clock - the clock of the game.
+     */
+    public FreezeTimer(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Starts a freeze.
+     *
+     * @param millis  - the length of the freeze in milliseconds.
+     * @param display - called with the remaining milliseconds when the freeze starts and on every whole second left.
+     * @param release - called once the freeze is over.
+     * @return - the running freeze.
+     */
+    public Countdown start(long millis, LongConsumer display, Runnable release) {
+        Countdown countdown = new Countdown(clock.nanos() + TimeUnit.MILLISECONDS.toNanos(millis), display, release);
+        countdown.run();
+        return countdown;
+    }
+
+    /**
+     * A running freeze, rescheduling itself until its deadline.
+     */
+    public class Countdown implements Runnable {
+
+        private final long deadline;
+        private final LongConsumer display;
+        private final Runnable release;
+
+        private volatile boolean cancelled;
+        private volatile Future<?> next;
+
+        /**
+         * The remaining milliseconds to display when the next tick runs (-1 before the first one).
+         */
+        private volatile long nextDisplay = -1;
+
+        private Countdown(long deadline, LongConsumer display, Runnable release) {
+            this.deadline = deadline;
+            this.display = display;
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled)
+                return;
+
+            long remaining = deadline - clock.nanos();
+            if (remaining <= 0) {
+                cancelled = true;
+                release.run();
+                return;
+            }
+
+            // display the remaining time (rounded up at first, then the whole second each tick was scheduled for, even if
+            // it runs late) and wake up again on the next whole second left, or the deadline
+            long shown = nextDisplay;
+            display.accept(shown >= 0 ? shown : TimeUnit.NANOSECONDS.toMillis(remaining + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+            long delay = remaining % tickNanos;
+            if (delay == 0) delay = tickNanos;
+            nextDisplay = TimeUnit.NANOSECONDS.toMillis(remaining - delay);
+            next = clock.schedule(this, delay);
+        }
+
+        /**
+         * Stops the freeze without releasing it.
+         */
+        public void cancel() {
+            cancelled = true;
+            Future<?> pending = next;
+            if (pending != null)
+                pending.cancel(false);
+        }
+
+        /**
+         * @return - true iff the freeze was released or cancelled.
+         */
+        public boolean isDone() {
+            return cancelled;
+        }
+    }
+}
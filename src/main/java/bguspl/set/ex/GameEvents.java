@@ -0,0 +1,122 @@
+package bguspl.set.ex;
+
+/**
+ * Flight recorder events of the game. They are disabled by default, so they cost next to nothing unless a recording
+ * enables them, e.g. -XX:StartFlightRecording:filename=game.jfr,+bguspl.set.CardPlaced#enabled=true (or enable them
+ * all in a custom .jfc settings file).
+ * Which events are enabled is cached in the flags below (updated as recordings start and stop), so the game checks a
+ * flag and creates nothing while an event is disabled. The events themselves are in JfrGameEvents, which is only loaded
+ * (by name) where the runtime has the flight recorder (Java 11+, or 8u262+) - elsewhere all the flags stay false.
+ */
+final class GameEvents {
+
+    private GameEvents() {}
+
+    static volatile boolean cardPlacedEnabled;
+    static volatile boolean cardRemovedEnabled;
+    static volatile boolean claimSubmittedEnabled;
+    static volatile boolean claimValidatedEnabled;
+    static volatile boolean claimRejectedEnabled;
+    static volatile boolean freezeStartedEnabled;
+    static volatile boolean freezeEndedEnabled;
+    static volatile boolean reshuffleEnabled;
+    static volatile boolean dealerWakeupEnabled;
+
+    /**
+     * Creates and commits the events (called only while they are enabled).
+     */
+    interface Recorder {
+        void cardPlaced(int slot, int card, long elapsed);
+        void cardRemoved(int slot, int card, long elapsed);
+        void claimSubmitted(int player, int card1, int card2, int card3);
+        void claimValidated(int player, long elapsed);
+        void claimRejected(int player, boolean stale, long elapsed);
+        void freezeStarted(int player, long millis, boolean penalty);
+        void freezeEnded(int player, boolean penalty);
+        void reshuffle(int cards, boolean timedOut, long elapsed);
+        void dealerWakeup(boolean claim, long waited);
+    }
+
+    private static final Recorder recorder = loadRecorder();
+
+    /**
+     * @return - the flight recorder's events, or null if the runtime (or the build) has no flight recorder.
+     */
+    private static Recorder loadRecorder() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder", false, GameEvents.class.getClassLoader());
+            return (Recorder) Class.forName("bguspl.set.ex.JfrGameEvents").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param enabled - true iff the event that is timed is enabled.
+     * @return - the System.nanoTime to time the event from, or 0 if it is disabled.
+     */
+    static long start(boolean enabled) {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param enabled - true iff the event is enabled now.
+     * @param start   - the System.nanoTime the event started (from start), 0 if it was disabled then.
+     * @return - true iff the event is enabled and was enabled when it started.
+     */
+    private static boolean timed(boolean enabled, long start) {
+        return enabled && start != 0;
+    }
+
+    static void cardPlaced(int slot, int card, long start) {
+        if (timed(cardPlacedEnabled, start))
+            recorder.cardPlaced(slot, card, System.nanoTime() - start);
+    }
+
+    static void cardRemoved(int slot, int card, long start) {
+        if (timed(cardRemovedEnabled, start))
+            recorder.cardRemoved(slot, card, System.nanoTime() - start);
+    }
+
+    static void claimSubmitted(int player, int[] cards) {
+        if (claimSubmittedEnabled)
+            recorder.claimSubmitted(player, cards[Table.firstCard], cards[Table.secondCard], cards[Table.thirdCard]);
+    }
+
+    /**
+     * @param start - the System.nanoTime the dealer started checking the claim.
+     */
+    static void claimValidated(int player, long start) {
+        if (claimValidatedEnabled)
+            recorder.claimValidated(player, System.nanoTime() - start);
+    }
+
+    /**
+     * @param stale - true iff the claim was stale rather than not a set.
+     * @param start - the System.nanoTime the dealer started checking the claim.
+     */
+    static void claimRejected(int player, boolean stale, long start) {
+        if (claimRejectedEnabled)
+            recorder.claimRejected(player, stale, System.nanoTime() - start);
+    }
+
+    static void freezeStarted(int player, long millis, boolean penalty) {
+        if (freezeStartedEnabled)
+            recorder.freezeStarted(player, millis, penalty);
+    }
+
+    static void freezeEnded(int player, boolean penalty) {
+        if (freezeEndedEnabled)
+            recorder.freezeEnded(player, penalty);
+    }
+
+    static void reshuffle(int cards, boolean timedOut, long start) {
+        if (timed(reshuffleEnabled, start))
+            recorder.reshuffle(cards, timedOut, System.nanoTime() - start);
+    }
+
+    static void dealerWakeup(boolean claim, long start) {
+        if (timed(dealerWakeupEnabled, start))
+            recorder.dealerWakeup(claim, System.nanoTime() - start);
+    }
+}
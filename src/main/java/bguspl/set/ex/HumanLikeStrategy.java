@@ -0,0 +1,37 @@
+package bguspl.set.ex;
+
+import bguspl.set.ThinkTimeDistribution;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claims a legal set of the table like the oracle, but only after a thinking time drawn from a distribution.
+ */
+public class HumanLikeStrategy extends OracleStrategy {
+
+    private final Random random;
+    private final ThinkTimeDistribution distribution;
+    private final double meanMillis;
+    private final double deviationMillis;
+
+    /**
+     * @param table           - the table the player plays on.
+     * @param random          - the player's source of randomness.
+     * @param distribution    - the distribution of the thinking times.
+     * @param meanMillis      - the mean thinking time in milliseconds.
+     * @param deviationMillis - the standard deviation of the thinking times in milliseconds.
+     */
+    public HumanLikeStrategy(Table table, Random random, ThinkTimeDistribution distribution, double meanMillis, double deviationMillis) {
+        super(table, random);
+        this.random = random;
+        this.distribution = distribution;
+        this.meanMillis = meanMillis;
+        this.deviationMillis = deviationMillis;
+    }
+
+    @Override
+    public long thinkNanos() {
+        return (long) (distribution.sample(random, meanMillis, deviationMillis) * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,287 @@
+package bguspl.set.ex;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The flight recorder events of the game, created and committed for GameEvents. This is the only class of the game that
+ * refers to jdk.jfr, so it is only loaded (and only needs to compile) where the runtime has the flight recorder.
+ * The events are created once their outcome is known, and carry the time they took as a field.
+ */
+final class JfrGameEvents implements GameEvents.Recorder {
+
+    /**
+     * Caches which events are enabled in GameEvents, now and whenever a recording starts or stops (created by
+     * GameEvents only).
+     */
+    JfrGameEvents() {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                refresh();
+            }
+        });
+        refresh();
+    }
+
+    @Name("bguspl.set.CardPlaced")
+    @Label("Card Placed")
+    @Description("A card placed on the table (elapsed includes the table delay)")
+    @Category({"Set Game", "Table"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class CardPlaced extends Event {
+        @Label("Slot")
+        int slot;
+
+        @Label("Card")
+        int card;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("bguspl.set.CardRemoved")
+    @Label("Card Removed")
+    @Description("A card removed from the table (elapsed includes the table delay)")
+    @Category({"Set Game", "Table"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class CardRemoved extends Event {
+        @Label("Slot")
+        int slot;
+
+        @Label("Card")
+        int card;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("bguspl.set.ClaimSubmitted")
+    @Label("Claim Submitted")
+    @Description("A player placed its third token and claimed a set")
+    @Category({"Set Game", "Claims"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class ClaimSubmitted extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("First Card")
+        int card1;
+
+        @Label("Second Card")
+        int card2;
+
+        @Label("Third Card")
+        int card3;
+    }
+
+    @Name("bguspl.set.ClaimValidated")
+    @Label("Claim Validated")
+    @Description("The dealer found a claim to be a legal set and took its cards")
+    @Category({"Set Game", "Claims"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class ClaimValidated extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("Elapsed")
+        @Description("The time the dealer spent checking the claim and taking its cards")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("bguspl.set.ClaimRejected")
+    @Label("Claim Rejected")
+    @Description("The dealer found a claim not to be a legal set, or stale (its tokens or cards changed)")
+    @Category({"Set Game", "Claims"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class ClaimRejected extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("Stale")
+        boolean stale;
+
+        @Label("Elapsed")
+        @Description("The time the dealer spent checking the claim")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("bguspl.set.FreezeStarted")
+    @Label("Freeze Started")
+    @Category({"Set Game", "Players"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class FreezeStarted extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("Freeze")
+        @Timespan(Timespan.MILLISECONDS)
+        long millis;
+
+        @Label("Penalty")
+        boolean penalty;
+    }
+
+    @Name("bguspl.set.FreezeEnded")
+    @Label("Freeze Ended")
+    @Category({"Set Game", "Players"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class FreezeEnded extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("Penalty")
+        boolean penalty;
+    }
+
+    @Name("bguspl.set.Reshuffle")
+    @Label("Reshuffle")
+    @Description("The dealer took the cards off the table back to the deck")
+    @Category({"Set Game", "Dealer"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class Reshuffle extends Event {
+        @Label("Cards")
+        int cards;
+
+        @Label("Timed Out")
+        @Description("True iff no set was collected in time (false when the game is over)")
+        boolean timedOut;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("bguspl.set.DealerWakeup")
+    @Label("Dealer Wakeup")
+    @Description("The dealer waited for a claim, and woke up with one or on a timeout")
+    @Category({"Set Game", "Dealer"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class DealerWakeup extends Event {
+        @Label("Claim")
+        @Description("True iff the dealer checked a claim")
+        boolean claim;
+
+        @Label("Waited")
+        @Timespan(Timespan.NANOSECONDS)
+        long waited;
+    }
+
+    private static void refresh() {
+        GameEvents.cardPlacedEnabled = isEnabled(CardPlaced.class);
+        GameEvents.cardRemovedEnabled = isEnabled(CardRemoved.class);
+        GameEvents.claimSubmittedEnabled = isEnabled(ClaimSubmitted.class);
+        GameEvents.claimValidatedEnabled = isEnabled(ClaimValidated.class);
+        GameEvents.claimRejectedEnabled = isEnabled(ClaimRejected.class);
+        GameEvents.freezeStartedEnabled = isEnabled(FreezeStarted.class);
+        GameEvents.freezeEndedEnabled = isEnabled(FreezeEnded.class);
+        GameEvents.reshuffleEnabled = isEnabled(Reshuffle.class);
+        GameEvents.dealerWakeupEnabled = isEnabled(DealerWakeup.class);
+    }
+
+    private static boolean isEnabled(Class<? extends Event> event) {
+        return EventType.getEventType(event).isEnabled();
+    }
+
+    @Override
+    public void cardPlaced(int slot, int card, long elapsed) {
+        CardPlaced event = new CardPlaced();
+        event.slot = slot;
+        event.card = card;
+        event.elapsed = elapsed;
+        event.commit();
+    }
+
+    @Override
+    public void cardRemoved(int slot, int card, long elapsed) {
+        CardRemoved event = new CardRemoved();
+        event.slot = slot;
+        event.card = card;
+        event.elapsed = elapsed;
+        event.commit();
+    }
+
+    @Override
+    public void claimSubmitted(int player, int card1, int card2, int card3) {
+        ClaimSubmitted event = new ClaimSubmitted();
+        event.player = player;
+        event.card1 = card1;
+        event.card2 = card2;
+        event.card3 = card3;
+        event.commit();
+    }
+
+    @Override
+    public void claimValidated(int player, long elapsed) {
+        ClaimValidated event = new ClaimValidated();
+        event.player = player;
+        event.elapsed = elapsed;
+        event.commit();
+    }
+
+    @Override
+    public void claimRejected(int player, boolean stale, long elapsed) {
+        ClaimRejected event = new ClaimRejected();
+        event.player = player;
+        event.stale = stale;
+        event.elapsed = elapsed;
+        event.commit();
+    }
+
+    @Override
+    public void freezeStarted(int player, long millis, boolean penalty) {
+        FreezeStarted event = new FreezeStarted();
+        event.player = player;
+        event.millis = millis;
+        event.penalty = penalty;
+        event.commit();
+    }
+
+    @Override
+    public void freezeEnded(int player, boolean penalty) {
+        FreezeEnded event = new FreezeEnded();
+        event.player = player;
+        event.penalty = penalty;
+        event.commit();
+    }
+
+    @Override
+    public void reshuffle(int cards, boolean timedOut, long elapsed) {
+        Reshuffle event = new Reshuffle();
+        event.cards = cards;
+        event.timedOut = timedOut;
+        event.elapsed = elapsed;
+        event.commit();
+    }
+
+    @Override
+    public void dealerWakeup(boolean claim, long waited) {
+        DealerWakeup event = new DealerWakeup();
+        event.claim = claim;
+        event.waited = waited;
+        event.commit();
+    }
+}
@@ -0,0 +1,23 @@
+package bguspl.set.ex;
+
+import java.util.Random;
+
+/**
+ * Claims a legal set of the table, if there is one, for load tests with a high rate of successful claims.
+ */
+public class OracleStrategy implements AiStrategy {
+
+    private final Table table;
+    private final Random random;
+
+    public OracleStrategy(Table table, Random random) {
+        this.table = table;
+        this.random = random;
+    }
+
+    @Override
+    public boolean choose(int[] claim) {
+        // start from a random slot, so that the players do not all go after the same set
+        return table.findSet(claim, random.nextInt(table.slotToCard.length));
+    }
+}
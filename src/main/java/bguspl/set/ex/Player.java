@@ -9,13 +9,21 @@ import java.util.List;
 import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
 import java.util.logging.Level;
 
 import javax.swing.UIDefaults.ProxyLazyValue;
 
 import org.w3c.dom.events.Event;
 
+import bguspl.set.AiMode;
 import bguspl.set.Env;
+import bguspl.set.ExecutionModel;
+import bguspl.set.Metrics;
 
 /**
  * This class manages the players' threads and data
@@ -77,7 +85,90 @@ public class Player implements Runnable {
 
     private Dealer dealer;
 
-    private Thread dealThread;
+    /**
+     * The running point or penalty freeze of the player (null if there is none), and the number of freezes started so
+     * far, which tells a freeze that was replaced by a newer one (guarded by the player's lock).
+     * A freeze outlives a reshuffle: unfreeze() leaves it running, and only its own release lifts it.
+     */
+    private volatile FreezeTimer.Countdown countdown;
+    private int freezes;
+    private boolean freezing;
+
+    private final FreezeTimer freezeTimer;
+
+    /**
+     * The number of key presses the computer input makes in a single task of the pool execution model.
+     */
+    private static final int aiPressesPerTask = 16;
+
+    /**
+     * The worker pool running the player's tasks (null unless the execution model is POOL).
+     */
+    private final ExecutorService workers;
+
+    /**
+     * True iff a task of the computer input is scheduled or running (pool execution model).
+     */
+    private final AtomicBoolean aiScheduled = new AtomicBoolean();
+
+    private final Random aiRandom = new Random();
+
+    /**
+     * True iff a task of the player's worker is scheduled or running (pool execution model).
+     */
+    private final AtomicBoolean workerScheduled = new AtomicBoolean();
+
+    /**
+     * Counted down once the player's tasks are done (pool execution model).
+     */
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * The key presses waiting for the player's worker: a bounded queue (guarded by the player's lock) holding at most
+     * the slots of one set.
+     */
+    private final int[] inputs = new int[Table.tokenToSet];
+    private int inputHead;
+    private int inputSize;
+
+    /**
+     * Requests from the dealer to clear the player's tokens, or to drop those the table no longer has, which the
+     * player's worker applies before the next key press (only the worker changes tokQueue).
+     */
+    private volatile boolean clearTokens;
+    private volatile boolean reconcileTokens;
+
+    /**
+     * True iff the player is a computer player that only reacts to changes (AiMode.EVENTS), or one that presses keys
+     * all the time.
+     */
+    private final boolean eventDriven;
+    private final boolean busy;
+
+    /**
+     * True iff a reaction of the event driven computer input is scheduled.
+     */
+    private final AtomicBoolean reactionScheduled = new AtomicBoolean();
+
+    /**
+     * The key presses of the event driven computer input's last reaction, fed to the input queue as it has room
+     * (guarded by the player's lock).
+     */
+    private final int[] plan = new int[2 * Table.tokenToSet];
+    private int planNext;
+    private int planSize;
+
+    /**
+     * How the event driven computer input chooses the cards it claims, and the slots of its last choice (used by the
+     * reactions only).
+     */
+    private final AiStrategy strategy;
+    private final int[] claim = new int[Table.tokenToSet];
+
+    /**
+     * The reaction of the event driven computer input, created once as it is scheduled on every change.
+     */
+    private final Runnable reaction = this::react;
     
 
     
@@ -102,6 +193,47 @@ public class Player implements Runnable {
         needToFreeze = false;
         locObject = new Object();
         this.dealer = dealer;
+        freezeTimer = new FreezeTimer(env.clock);
+        workers = env.config.executionModel == ExecutionModel.POOL ? ExecutionModel.workers(env.config.workerThreads) : null;
+        eventDriven = !human && env.config.aiMode == AiMode.EVENTS;
+        busy = !human && !eventDriven;
+        strategy = eventDriven ? AiStrategy.create(env, table, aiRandom) : null;
+        if (eventDriven)
+            table.addListener(new TableListener() {
+                @Override
+                public void cardPlaced(int card, int slot) {
+                    reactLater();
+                }
+
+                @Override
+                public void cardRemoved(int slot) {
+                    reactLater();
+                }
+            });
+    }
+
+    /**
+     * Starts the player: its thread (which starts the computer input's thread), or with the pool execution model its
+     * computer input's first task.
+     */
+    public void start() {
+        if (workers == null) {
+            playerThread = env.config.executionModel.newThread(this, "player-" + id);
+            playerThread.start();
+            return;
+        }
+        env.logger.info("Player " + id + " starting on the worker pool.");
+        if (busy) resumeArtificialIntelligence();
+    }
+
+    /**
+     * Waits until the player's threads (or tasks) are done, after the player was terminated.
+     */
+    public void join() throws InterruptedException {
+        if (workers == null)
+            playerThread.join();
+        else
+            done.await();
     }
 
     /**
@@ -110,43 +242,143 @@ public class Player implements Runnable {
     @Override
     public void run() {
         playerThread = Thread.currentThread();
-        dealThread = dealer.getCuThread();
         env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
-        if (!human) createArtificialIntelligence();
+        if (busy) createArtificialIntelligence();
         while (!terminate) {
             // TODO implement main player loop
             synchronized(this){
-                try {wait();} 
-                catch (InterruptedException ignored) {}
+                while (!terminate && flag == Table.neutralFlag && inputSize == 0)
+                    try {wait();} 
+                    catch (InterruptedException ignored) {}
             }
-            pointOrPenalty();
+            handleEvents();
 
         }
-        if (!human) try { aiThread.join(); } catch (InterruptedException ignored) {}
+        if (busy) try { aiThread.join(); } catch (InterruptedException ignored) {}
         env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
-    public void removeNotActiveTokens()
-    {
-        List<Integer> keep = new ArrayList<>();
-        int size = tokQueue.size();
+    /**
+     * A task of the player's worker (pool execution model): handles the waiting verdict and key presses.
+     */
+    private void workerTask() {
+        handleEvents();
+        workerScheduled.set(false);
+        if (hasEvents())
+            scheduleWorker(); // arrived before it was unscheduled
+    }
+
+    /**
+     * Schedules the player's worker task, unless it is already scheduled (pool execution model).
+     */
+    private void scheduleWorker() {
+        if (workerScheduled.compareAndSet(false, true))
+            workers.execute(this::workerTask);
+    }
+
+    private synchronized boolean hasEvents() {
+        return flag != Table.neutralFlag || inputSize > 0;
+    }
+
+    /**
+     * Handles the verdict and the key presses waiting for the player (called by the player's worker only).
+     */
+    private void handleEvents() {
+        while (true) {
+            pointOrPenalty();
+            int slot = takeInput();
+            if (slot == Table.emptySlot)
+                return;
+            applyTokenRequests();
+            handleKeyPress(slot);
+        }
+    }
 
-        for (int i = 0; i < size; i++) {
-            Integer temp = tokQueue.poll();
-            if(table.playerContainsToken(temp, id))
-                keep.add(temp);    
+    /**
+     * Queues a key press for the player's worker.
+     *
+     * @param slot  - the slot corresponding to the key pressed.
+     * @param block - true to wait while the queue is full, false to drop the key press.
+     * @return - true iff the key press was queued.
+     */
+    private boolean offerInput(int slot, boolean block) {
+        synchronized(this) {
+            while (inputSize == inputs.length) {
+                if (!block || terminate)
+                    return false;
+                try {wait();}
+                catch (InterruptedException e) { return false; }
+            }
+            enqueueInput(slot);
+            notifyAll();
+        }
+        if (workers != null)
+            scheduleWorker();
+        return true;
+    }
+
+    private void enqueueInput(int slot) {
+        inputs[(inputHead + inputSize) % inputs.length] = slot;
+        inputSize++;
+    }
+
+    /**
+     * @return - the next queued key press, or Table.emptySlot if there is none.
+     */
+    private int takeInput() {
+        int slot;
+        synchronized(this) {
+            if (inputSize == 0)
+                return Table.emptySlot;
+            slot = inputs[inputHead];
+            inputHead = (inputHead + 1) % inputs.length;
+            inputSize--;
+            notifyAll(); // a producer may be waiting for room
         }
+        if (workers != null && busy)
+            resumeArtificialIntelligence();
+        if (eventDriven)
+            feedPlan();
+        return slot;
+    }
+
+    private synchronized boolean isInputFull() {
+        return inputSize == inputs.length;
+    }
 
-        for (int i = 0; i < keep.size(); i++) {
-            tokQueue.add(keep.get(i));
+    /**
+     * Applies the dealer's requests to clear or reconcile the tokens (called by the player's worker only).
+     */
+    private void applyTokenRequests() {
+        if (clearTokens) {
+            clearTokens = false;
+            tokQueue.clear();
         }
+        if (reconcileTokens) {
+            reconcileTokens = false;
+            List<Integer> keep = new ArrayList<>();
+            int size = tokQueue.size();
+
+            for (int i = 0; i < size; i++) {
+                Integer temp = tokQueue.poll();
+                if(table.playerContainsToken(temp, id))
+                    keep.add(temp);    
+            }
+
+            for (int i = 0; i < keep.size(); i++) {
+                tokQueue.add(keep.get(i));
+            }
+        }
+    }
+
+    public void removeNotActiveTokens()
+    {
+        reconcileTokens = true;
 
         freeze = false;
         needToFreeze=false;
 
-        synchronized(locObject){
-            locObject.notifyAll();
-        }
+        wakeArtificialIntelligence();
     }
 
     /**
@@ -155,17 +387,17 @@ public class Player implements Runnable {
      */
     private void createArtificialIntelligence() {
         // note: this is a very very smart AI (!)
-        aiThread = new Thread(() -> {
+        aiThread = env.config.executionModel.newThread(() -> {
             env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
             Random rnd = new Random();
             while (!terminate) {
                 // TODO implement player key press simulator
-                keyPressed(rnd.nextInt(env.config.tableSize));//   
+                offerInput(rnd.nextInt(env.config.tableSize), true);//   
                     if(needToFreeze){
                         try {
                             synchronized(locObject){
-                            { 
-                                locObject.wait();}
+                            while (needToFreeze && !terminate)
+                                locObject.wait();
                             }
                         } catch (InterruptedException ignored) {}}
                         
@@ -174,16 +406,124 @@ public class Player implements Runnable {
         }, "computer-" + id);
         aiThread.start();
     }
+
+    /**
+     * A task of the computer input (pool execution model): makes a few key presses and schedules the next task, unless
+     * the player is frozen or its input queue is full - the end of the freeze, or the worker taking a key press,
+     * schedules it again.
+     */
+    private void artificialIntelligenceTask() {
+        for (int i = 0; i < aiPressesPerTask && canPress(); i++)
+            offerInput(aiRandom.nextInt(env.config.tableSize), false);
+
+        if (terminate) {
+            done.countDown(); // stays scheduled, so it is never scheduled again
+            return;
+        }
+        if (canPress()) {
+            workers.execute(this::artificialIntelligenceTask);
+            return;
+        }
+        aiScheduled.set(false);
+        if (terminate || canPress())
+            resumeArtificialIntelligence(); // woken up before it was unscheduled
+    }
+
+    private boolean canPress() {
+        return !terminate && !freeze && !needToFreeze && !isInputFull();
+    }
+
+    /**
+     * Schedules the computer input's task, unless it is already scheduled (pool execution model).
+     */
+    private void resumeArtificialIntelligence() {
+        if (aiScheduled.compareAndSet(false, true))
+            workers.execute(this::artificialIntelligenceTask);
+    }
+
+    /**
+     * Wakes up the computer input after a freeze or termination.
+     */
+    private void wakeArtificialIntelligence() {
+        synchronized(locObject){
+            locObject.notifyAll();
+        }
+        if (workers != null && busy)
+            resumeArtificialIntelligence();
+        if (eventDriven)
+            reactLater();
+    }
+
+    /**
+     * Schedules a reaction of the event driven computer input after its reaction (and thinking) time, unless one is
+     * already scheduled.
+     */
+    private void reactLater() {
+        if (!terminate && reactionScheduled.compareAndSet(false, true))
+            env.clock.schedule(reaction, TimeUnit.MILLISECONDS.toNanos(env.config.aiReactionMillis) + strategy.thinkNanos());
+    }
+
+    /**
+     * A reaction of the event driven computer input (on the clock's thread): lets the strategy choose the cards to
+     * claim and plans the key presses claiming them - removing its other tokens first.
+     */
+    private void react() {
+        reactionScheduled.set(false);
+        if (terminate || freeze || needToFreeze || table.isInShuflle)
+            return; // lifting the freeze or placing the cards will wake it up again
+
+        if (!strategy.choose(claim))
+            return;
+
+        synchronized(this) {
+            planNext = 0;
+            planSize = 0;
+            // by slot rather than iterating tokQueue, so that reactions do not allocate
+            for (int slot = 0; slot < env.config.tableSize; slot++)
+                if (!isClaimed(slot) && tokQueue.contains(slot))
+                    plan[planSize++] = slot;
+            for (int i = 0; i < Table.tokenToSet; i++)
+                if (!tokQueue.contains(claim[i]))
+                    plan[planSize++] = claim[i];
+        }
+        feedPlan();
+    }
+
+    private boolean isClaimed(int slot) {
+        for (int i = 0; i < Table.tokenToSet; i++)
+            if (claim[i] == slot)
+                return true;
+        return false;
+    }
+
+    /**
+     * Moves the planned key presses of the event driven computer input to the input queue, as long as it has room.
+     */
+    private void feedPlan() {
+        boolean fed = false;
+        synchronized(this) {
+            while (planNext < planSize && inputSize < inputs.length) {
+                enqueueInput(plan[planNext++]);
+                fed = true;
+            }
+            if (fed)
+                notifyAll();
+        }
+        if (fed && workers != null)
+            scheduleWorker();
+    }
     /**
      * Called when the game should be terminated due to an external event.
      */
     public void terminate() {
         // TODO implement
         terminate = true;
-        synchronized(locObject)
-        {
-            locObject.notifyAll();
-        }
+        FreezeTimer.Countdown running = countdown;
+        if(running != null)
+            running.cancel();
+        wakeArtificialIntelligence();
+        if (workers != null && !busy)
+            done.countDown();
 
         synchronized(this)
         {
@@ -192,57 +532,76 @@ public class Player implements Runnable {
     }
 
     /**
-     * This method is called when a key is pressed.
+     * This method is called when a key is pressed. The key press is queued for the player's worker, and dropped if
+     * the queue is full (so the caller, e.g. the ui thread, never waits).
      *
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
         // TODO implement
+        offerInput(slot, false);
+    }
+
+    /**
+     * Places or removes the player's token on the slot of a key press (called by the player's worker only).
+     *
+     * @param slot - the slot corresponding to the key pressed.
+     */
+    private void handleKeyPress(int slot) {
+        env.metrics.count(id, Metrics.Counter.KEY_PRESSES);
         if(!table.isInShuflle & !freeze)
         {     
-            if(tokQueue.contains(slot) & table.isCard(slot))
-            {
-                table.removeToken(id, slot);
-                tokQueue.remove(slot);
-            }
-            else if(table.isCard(slot) && tokQueue.size()<Table.tokenToSet)
+            // the table checks the card under the slot's lock - the dealer may remove it at any moment before that
+            if(tokQueue.remove(slot) && table.removeToken(id, slot))
+                return; // otherwise the token left with its card, and the key press places a new one
+            if(tokQueue.size()<Table.tokenToSet)
             {
-                tokQueue.add(slot);
-                if(tokQueue.size()==Table.tokenToSet)
+                boolean last = tokQueue.size() == Table.tokenToSet - 1;
+                if(last)
                     {
+                        // frozen before the claim is published, so an early verdict on it is not lost
                         freeze= true;
                         needToFreeze = true;
-                        table.placeToken(id, slot);
-                        if(dealer.sleeps)
-                            dealThread.interrupt();
-                        
                     }
-                else
-                table.placeToken(id, slot);
+                if(table.placeToken(id, slot))
+                    tokQueue.add(slot);
+                else if(last)
+                    {
+                        freeze = false;
+                        needToFreeze = false;
+                    }
             }
         }       
     }
 
     public void setFlag(int num)
     {
-        flag = num;
+        env.metrics.verdict(System.nanoTime() - table.claimNanos(id));
         synchronized(this)
         {
+            flag = num;
             notifyAll();
         }
+        if (workers != null)
+            scheduleWorker();
     }
 
     public void pointOrPenalty ()
     {
-        if(flag == Table.goodSet)
+        int verdict;
+        synchronized(this)
+        {
+            // take the verdict first - with short freezes the next one may arrive before point/penalty return
+            verdict = flag;
+            flag = Table.neutralFlag;
+        }
+        if(verdict == Table.goodSet)
             {
                 point();
-                flag = Table.neutralFlag;
             }
-        else if(flag == Table.badSet)
+        else if(verdict == Table.badSet)
             {
                 penalty();
-                flag = Table.neutralFlag;
             }
     }
 
@@ -258,25 +617,21 @@ public class Player implements Runnable {
         tokQueue.clear();
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
         env.ui.setScore(id, ++score);
-        env.ui.setFreeze(id, env.config.pointFreezeMillis);
-        
-        int count = 0 ;
-        while(count<env.config.pointFreezeMillis/Table.oneSec)
-        {
-            env.ui.setFreeze(id, env.config.pointFreezeMillis - count * Table.oneSec);
-            try {
-                Thread.sleep(Table.oneSec);
-            } catch (InterruptedException i) {}
-            count++;
-        } 
+        env.metrics.count(id, Metrics.Counter.POINTS);
+        GameEvents.freezeStarted(id, env.config.pointFreezeMillis, false);
+        startFreeze(env.config.pointFreezeMillis, this::endPointFreeze);
+    }
 
+    private void endPointFreeze(int freezeId)
+    {
+        if (!endFreeze(freezeId))
+            return;
         freeze = false;
+        GameEvents.freezeEnded(id, false);
         env.ui.setFreeze(id, Table.resetFreeze);
         
         needToFreeze = false;
-        synchronized(locObject){
-            locObject.notifyAll();
-        }  
+        wakeArtificialIntelligence();
     }
 
     /**
@@ -284,20 +639,63 @@ public class Player implements Runnable {
      */
     public void penalty() { ///need sync
         // TODO implement
-        int count = 0 ;
-        while(count<env.config.penaltyFreezeMillis/Table.oneSec)
-        {
-            env.ui.setFreeze(id, env.config.penaltyFreezeMillis - count * Table.oneSec);
-            try {
-                Thread.sleep(Table.oneSec);
-            } catch (InterruptedException ignored) {}
-            count++;
-        } 
+        env.metrics.count(id, Metrics.Counter.PENALTIES);
+        GameEvents.freezeStarted(id, env.config.penaltyFreezeMillis, true);
+        startFreeze(env.config.penaltyFreezeMillis, this::endPenaltyFreeze);
+    }
+
+    private void endPenaltyFreeze(int freezeId)
+    {
+        if (!endFreeze(freezeId))
+            return;
         freeze = false; 
+        GameEvents.freezeEnded(id, true);
         env.ui.setFreeze(id, Table.resetFreeze);
         removeNotActiveTokens();
     }
 
+    /**
+     * Freezes the player on the freeze timer, which counts the freeze down in the ui and releases the player
+     * when it is over (the player's thread does not wait for it).
+     *
+     * @param millis  - the length of the freeze in milliseconds.
+     * @param release - called with the id of the freeze when it is over.
+     */
+    private void startFreeze(long millis, IntConsumer release)
+    {
+        int freezeId;
+        synchronized(this) {
+            if (countdown != null)
+                countdown.cancel();
+            countdown = null;
+            freeze = true;
+            needToFreeze = true;
+            freezing = true;
+            freezeId = ++freezes;
+        }
+        FreezeTimer.Countdown started = freezeTimer.start(millis, remaining -> env.ui.setFreeze(id, remaining),
+                () -> release.accept(freezeId));
+        synchronized(this) {
+            if (freezing && freezes == freezeId) // not released at once
+                countdown = started;
+        }
+    }
+
+    /**
+     * Ends a freeze, unless it was replaced by a newer one.
+     *
+     * @param freezeId - the id of the freeze that is over.
+     * @return - true iff it is still the player's current freeze.
+     */
+    private synchronized boolean endFreeze(int freezeId)
+    {
+        if (!freezing || freezes != freezeId)
+            return false;
+        freezing = false;
+        countdown = null;
+        return true;
+    }
+
     public int score() {
         return score;
     }
@@ -320,13 +718,14 @@ public class Player implements Runnable {
 
     public void unfreeze()
     {
-        needToFreeze = false;
-        freeze = false;
-        tokQueue.clear();
-        synchronized(locObject)
-        {
-            locObject.notifyAll();
+        clearTokens = true;
+        synchronized(this) {
+            if (freezing)
+                return; // a point or penalty freeze lifts itself once it is over
+            needToFreeze = false;
+            freeze = false;
         }
+        wakeArtificialIntelligence();
     }
 
 
@@ -0,0 +1,43 @@
+package bguspl.set.ex;
+
+import java.util.Random;
+
+/**
+ * Claims random cards of the table (mostly not a set).
+ */
+public class RandomStrategy implements AiStrategy {
+
+    private final Table table;
+    private final Random random;
+
+    /**
+     * The slots with cards, shuffled so that the cards to claim come first.
+     */
+    private final int[] cardSlots;
+
+    public RandomStrategy(Table table, Random random) {
+        this.table = table;
+        this.random = random;
+        cardSlots = new int[table.slotToCard.length];
+    }
+
+    @Override
+    public boolean choose(int[] claim) {
+        int cards = 0;
+        for (int slot = 0; slot < cardSlots.length; slot++)
+            if (table.isCard(slot))
+                cardSlots[cards++] = slot;
+        if (cards < Table.tokenToSet)
+            return false;
+
+        // a partial Fisher-Yates shuffle
+        for (int i = 0; i < Table.tokenToSet; i++) {
+            int j = i + random.nextInt(cards - i);
+            int temp = cardSlots[i];
+            cardSlots[i] = cardSlots[j];
+            cardSlots[j] = temp;
+            claim[i] = cardSlots[i];
+        }
+        return true;
+    }
+}
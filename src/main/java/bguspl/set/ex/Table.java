@@ -1,6 +1,7 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.Metrics;
 import bguspl.set.Util;
 
 import java.io.UTFDataFormatException;
@@ -9,11 +10,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
 import java.util.function.ObjDoubleConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 import javax.swing.UIDefaults.ProxyLazyValue;
@@ -41,14 +47,99 @@ public class Table {
      */
     protected final Integer[] cardToSlot; // slot per card (if any)
 
-    private Queue<Integer> [] pQueues; //array of queues --> tokens for each player
+    /**
+     * The slots each player has tokens on: bit (slot % 64) of word (player * slotWords + slot / 64).
+     */
+    private final AtomicLongArray playerTokens;
 
-    private Queue<Integer>pIdqQueue; // Queue of players who reached 3 tokens
+    /**
+     * The players that have tokens on each slot: bit (player % 64) of word (slot * playerWords + player / 64).
+     */
+    private final AtomicLongArray slotTokens;
 
-    public Object lock ; 
+    private final int slotWords;
+    private final int playerWords;
+
+    /**
+     * Notified when cards are placed on or removed from the table.
+     */
+    private final List<TableListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The claims of players who reached 3 tokens, waiting for the dealer to check their sets.
+     * A player has at most one claim waiting (in the ring or in the dealer's batch), so the ring never overflows.
+     */
+    private final ClaimRing claims;
+    private final LongPredicate claimWait;
+
+    /**
+     * 1 iff the player has a claim waiting for the dealer (set when the claim is offered, cleared when the dealer takes
+     * it to check, or drops it on a reshuffle).
+     */
+    private final AtomicIntegerArray claimPending;
+
+    /**
+     * The slots and cards of each player's last claim (only written by the player's thread).
+     */
+    private final int[][] claimSlots;
+    private final int[][] claimCards;
+
+    /**
+     * The System.nanoTime of each player's last claim.
+     */
+    private final AtomicLongArray claimStamps;
+
+    /**
+     * The batch of claims the dealer took from the ring (only accessed by the dealer's thread), and the order in which
+     * to check them (by the time they were made).
+     */
+    private final int[] batchPlayers;
+    private final int[] batchSlots;
+    private final int[] batchCards;
+    private final long[] batchStamps;
+    private final int[] batchOrder;
+    private int batchSize;
+    private int batchNext;
+
+    /**
+     * One lock per slot, guarding the card in the slot and the tokens placed on it.
+     * Locks of several slots are always acquired in ascending slot order.
+     */
+    private final ReentrantLock[] slotLocks;
+
+    /**
+     * The card in each slot (emptySlot if none), mirroring slotToCard for lock-free readers.
+     */
+    private final AtomicIntegerArray slotCards;
+
+    /**
+     * The time (of the game's clock) the card in each slot was placed (guarded by the slot's lock).
+     */
+    private final long[] placedNanos;
+
+    /**
+     * A seqlock version per slot: incremented before and after every change to the slot's card or tokens (under the
+     * slot's lock), so it is odd while the slot is being changed.
+     */
+    private final AtomicIntegerArray slotVersions;
+
+    /**
+     * The number of optimistic attempts snapshot makes before it locks the slots.
+     */
+    private static final int optimisticAttempts = 8;
 
     public volatile Boolean isInShuflle;
 
+    /**
+     * The number of legal sets among the cards currently on the table (kept up to date by placeCard and removeCard).
+     */
+    private volatile int setCount;
+
+    /**
+     * The cards of the last legal set that was collected by checkSet.
+     */
+    private final int[] lastSet = new int[Table.tokenToSet];
+
 
     //////////////////////////////
     //#MAGIC_NUMBERS
@@ -72,7 +163,7 @@ public class Table {
     public static final int oneSec = 1000;
     public static final int delay = 300;
     public static final int tenSec = 10000;
-    public static final int dealerTurnSleep = 50;
+    public static final int warningTick = 10;
 
     public static final int neutralFlag = 0;
     public static final int tie = 2;
@@ -92,13 +183,31 @@ public class Table {
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        pQueues = new ConcurrentLinkedQueue[env.config.players];
-        // pQueues = new Queue[env.config.players];
-        for (int i = 0; i < env.config.players; i++) {
-            pQueues[i] = new ConcurrentLinkedQueue<Integer>();
+        slotWords = (slotToCard.length + Long.SIZE - 1) / Long.SIZE;
+        playerWords = (env.config.players + Long.SIZE - 1) / Long.SIZE;
+        playerTokens = new AtomicLongArray(env.config.players * slotWords);
+        slotTokens = new AtomicLongArray(slotToCard.length * playerWords);
+        claims = new ClaimRing(env.config.players);
+        claimWait = claims::await;
+        claimSlots = new int[env.config.players][Table.tokenToSet];
+        claimCards = new int[env.config.players][Table.tokenToSet];
+        claimStamps = new AtomicLongArray(env.config.players);
+        claimPending = new AtomicIntegerArray(env.config.players);
+        batchPlayers = new int[claims.capacity()];
+        batchSlots = new int[claims.capacity() * Table.tokenToSet];
+        batchCards = new int[claims.capacity() * Table.tokenToSet];
+        batchStamps = new long[claims.capacity()];
+        batchOrder = new int[claims.capacity()];
+        slotLocks = new ReentrantLock[slotToCard.length];
+        for (int i = 0; i < slotLocks.length; i++) {
+            slotLocks[i] = new ReentrantLock();
+        }
+        slotCards = new AtomicIntegerArray(slotToCard.length);
+        for (int i = 0; i < slotToCard.length; i++) {
+            slotCards.set(i, slotToCard[i] == null ? Table.emptySlot : slotToCard[i]);
         }
-        pIdqQueue = new ConcurrentLinkedQueue<Integer>();
-        lock = new Object();  
+        slotVersions = new AtomicIntegerArray(slotToCard.length);
+        placedNanos = new long[slotToCard.length];
         isInShuflle = true; 
     }
 
@@ -116,8 +225,10 @@ public class Table {
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        if (!anySet()) return;
+        TableSnapshot snapshot = snapshot();
+        List<Integer> deck = IntStream.range(0, snapshot.slots()).filter(snapshot::isCard).map(snapshot::card).boxed().collect(Collectors.toList());
+        env.util.streamSets(deck).forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
             List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
@@ -138,9 +249,94 @@ public class Table {
         return cards;
     }
 
+    /**
+     * @return - the number of legal sets among the cards on the table.
+     */
+    public int setCount() {
+        return setCount;
+    }
+
+    /**
+     * @return - true iff there is at least one legal set among the cards on the table.
+     */
+    public boolean anySet() {
+        return setCount > 0;
+    }
+
+    /**
+     * Finds a legal set among the cards on the table without locking or allocating, by completing pairs of cards and
+     * looking the completing card up on the table. Sets of more than three cards are not looked for.
+     *
+     * @param slots - filled with the slots of the set found.
+     * @param from  - the slot to start the search from (so that different callers find different sets).
+     * @return - true iff a set was found (the table may have changed since).
+     */
+    public boolean findSet(int[] slots, int from) {
+        if (env.config.featureSize != Table.tokenToSet || setCount == 0)
+            return false;
+
+        int size = slotCards.length();
+        for (int i = 0; i < size; i++) {
+            int first = (from + i) % size;
+            int card = slotCards.get(first);
+            if (card == Table.emptySlot)
+                continue;
+            for (int second = first + 1; second < size; second++) {
+                int other = slotCards.get(second);
+                if (other == Table.emptySlot || other == card)
+                    continue;
+                int third = env.util.completeSet(card, other);
+                if (third < 0 || third == card || third == other)
+                    continue;
+                Integer slot = cardToSlot[third];
+                if (slot != null && slot != first && slot != second && slotCards.get(slot) == third) {
+                    slots[0] = first;
+                    slots[1] = second;
+                    slots[2] = slot;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isOnTable(int card) {
+        Integer slot = cardToSlot[card];
+        return slot != null && slotToCard[slot] != null && slotToCard[slot] == card;
+    }
+
+    /**
+     * Counts the legal sets that the given card forms with the other cards on the table, by completing the card with
+     * every other card and checking whether the completing card is on the table too.
+     *
+     * @param card - a card that is on the table.
+     * @return - the number of legal sets on the table that contain the card.
+     */
+    private int countSetsWith(int card) {
+        int sets = 0;
+        for (int slot = 0; slot < slotToCard.length; slot++) {
+            Integer other = slotToCard[slot];
+            if (other == null || other == Table.emptySlot || other == card)
+                continue;
+            int third = env.util.completeSet(card, other);
+            if (third >= 0 && third != other && third != card && isOnTable(third) && cardToSlot[third] > slot)
+                sets++;
+        }
+        return sets;
+    }
+
+    /**
+     * Recounts the sets on the table from scratch (used when sets are not made of three cards).
+     */
+    private void recountSets() {
+        List<Integer> deck = Arrays.stream(slotToCard).filter(card -> card != null && card != Table.emptySlot).collect(Collectors.toList());
+        setCount = env.util.findSets(deck, Integer.MAX_VALUE).size();
+    }
+
     public boolean isCard(int slot)
     {
-        return slotToCard[slot] != Table.emptySlot;
+        Integer card = slotToCard[slot];
+        return card != null && card != Table.emptySlot;
     }
 
     public boolean empty_Table()
@@ -154,10 +350,38 @@ public class Table {
 
     public boolean playerContainsToken(int slot,int playerId)
     {
-        if(pQueues[playerId].contains(slotToCard[slot]))
-            return true;
+        return (playerTokens.get(playerId * slotWords + slot / Long.SIZE) & (1L << slot)) != 0;
+    }
 
-        return false;
+    /**
+     * @return - the number of tokens the player has on the table.
+     */
+    private int countTokens(int player)
+    {
+        int tokens = 0;
+        for (int i = 0; i < slotWords; i++)
+            tokens += Long.bitCount(playerTokens.get(player * slotWords + i));
+        return tokens;
+    }
+
+    /**
+     * Sets the bits of a mask in a word of a bit array.
+     *
+     * @return - the word before the bits were set.
+     */
+    private static long setBits(AtomicLongArray bits, int word, long mask)
+    {
+        return bits.getAndAccumulate(word, mask, (old, set) -> old | set);
+    }
+
+    /**
+     * Clears the bits of a mask in a word of a bit array.
+     *
+     * @return - the word before the bits were cleared.
+     */
+    private static long clearBits(AtomicLongArray bits, int word, long mask)
+    {
+        return bits.getAndAccumulate(word, mask, (old, cleared) -> old & ~cleared);
     }
 
     /**
@@ -168,15 +392,107 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
+        long eventStart = GameEvents.start(GameEvents.cardPlacedEnabled);
         try {
-            Thread.sleep(env.config.tableDelayMillis);
+            env.clock.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {}
 
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
+        slotLocks[slot].lock();
+        try {
+            Integer previous = slotToCard[slot];
+            if (previous != null && previous != Table.emptySlot && env.config.featureSize == Table.tokenToSet)
+                setCount -= countSetsWith(previous);
+
+            slotVersions.incrementAndGet(slot);
+            cardToSlot[card] = slot;
+            slotToCard[slot] = card;
+            slotCards.set(slot, card);
+            placedNanos[slot] = env.clock.nanos();
+            slotVersions.incrementAndGet(slot);
+
+            if (env.config.featureSize == Table.tokenToSet)
+                setCount += countSetsWith(card);
+            else
+                recountSets();
 
-        // TODO implement
-        env.ui.placeCard(card, slot);
+            env.ui.placeCard(card, slot);
+        } finally {
+            slotLocks[slot].unlock();
+        }
+        GameEvents.cardPlaced(slot, card, eventStart);
+        for (TableListener listener : listeners)
+            listener.cardPlaced(card, slot);
+    }
+
+    /**
+     * Subscribes to the changes of the cards on the table.
+     *
+     * @param listener - notified after every card placed or removed.
+     */
+    public void addListener(TableListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Takes a consistent snapshot of the cards and tokens on the table without blocking its writers.
+     * The slot versions are read before and after reading the slots, and the snapshot is retried if any slot changed
+     * in between (or was being changed). After a few failed attempts the slots are locked instead.
+     *
+     * @return - an immutable view of the table.
+     */
+    public TableSnapshot snapshot() {
+        int slots = slotCards.length();
+        int[] versions = new int[slots];
+        int[] cards = new int[slots];
+        long[] tokens = new long[slotTokens.length()];
+
+        for (int attempt = 0; attempt < Table.optimisticAttempts; attempt++) {
+            boolean stable = true;
+            for (int slot = 0; slot < slots && stable; slot++) {
+                versions[slot] = slotVersions.get(slot);
+                stable = (versions[slot] & 1) == 0;
+            }
+            if (!stable) {
+                Thread.yield();
+                continue;
+            }
+            readSlots(cards, tokens);
+            for (int slot = 0; slot < slots && stable; slot++)
+                stable = slotVersions.get(slot) == versions[slot];
+            if (stable)
+                return new TableSnapshot(cards, tokens, playerWords, isInShuflle);
+        }
+
+        lockAllSlots();
+        try {
+            readSlots(cards, tokens);
+            return new TableSnapshot(cards, tokens, playerWords, isInShuflle);
+        } finally {
+            unlockAllSlots();
+        }
+    }
+
+    private void readSlots(int[] cards, long[] tokens) {
+        for (int slot = 0; slot < cards.length; slot++)
+            cards[slot] = slotCards.get(slot);
+        for (int word = 0; word < tokens.length; word++)
+            tokens[word] = slotTokens.get(word);
+    }
+
+    /**
+     * Locks all the slots of the table (in ascending order), e.g. for reshuffling the whole table.
+     */
+    public void lockAllSlots() {
+        for (ReentrantLock slotLock : slotLocks)
+            slotLock.lock();
+    }
+
+    /**
+     * Unlocks all the slots of the table.
+     */
+    public void unlockAllSlots() {
+        for (int i = slotLocks.length - 1; i >= 0; i--)
+            slotLocks[i].unlock();
     }
 
     /**
@@ -184,23 +500,43 @@ public class Table {
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
-        
+        long eventStart = GameEvents.start(GameEvents.cardRemovedEnabled);
         try {
-            Thread.sleep(env.config.tableDelayMillis);
+            env.clock.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {}
 
-        for (int i = 0; i < pQueues.length; i++) {
-            if(pQueues[i].contains(slotToCard[slot]))
-            {
-                pQueues[i].remove(slotToCard[slot]);
-                // pIdqQueue.remove(i);
-                env.ui.removeToken(i, slot);
+        int removed = Table.emptySlot;
+        slotLocks[slot].lock();
+        slotVersions.incrementAndGet(slot);
+        try {
+            for (int word = 0; word < playerWords; word++) {
+                long players = slotTokens.getAndSet(slot * playerWords + word, 0);
+                for (; players != 0; players &= players - 1) {
+                    int player = word * Long.SIZE + Long.numberOfTrailingZeros(players);
+                    clearBits(playerTokens, player * slotWords + slot / Long.SIZE, 1L << slot);
+                    env.ui.removeToken(player, slot);
+                }
             }
-        }
 
-        env.ui.removeCard(slot);
-        // TODO implement
-        slotToCard[slot] = Table.emptySlot;
+            env.ui.removeCard(slot);
+            Integer card = slotToCard[slot];
+            if (card != null && card != Table.emptySlot) {
+                removed = card;
+                env.metrics.cardRemoved(env.clock.nanos() - placedNanos[slot]);
+            }
+            if (card != null && card != Table.emptySlot && env.config.featureSize == Table.tokenToSet)
+                setCount -= countSetsWith(card);
+            slotToCard[slot] = Table.emptySlot;
+            slotCards.set(slot, Table.emptySlot);
+            if (env.config.featureSize != Table.tokenToSet)
+                recountSets();
+        } finally {
+            slotVersions.incrementAndGet(slot);
+            slotLocks[slot].unlock();
+        }
+        GameEvents.cardRemoved(slot, removed, eventStart);
+        for (TableListener listener : listeners)
+            listener.cardRemoved(slot);
     }
 
 
@@ -208,96 +544,227 @@ public class Table {
      * Places a player token on a grid slot.
      * @param player - the player the token belongs to.
      * @param slot   - the slot on which to place the token.
+     * @return       - true iff the token was placed (false if the slot has no card, e.g. the dealer just removed it,
+     *                 if the player already has a token there or if the player has no tokens left).
      */
-    public void placeToken(int player, int slot) {
+    public boolean placeToken(int player, int slot) {
         
-        if(pQueues[player].size()<Table.tokenToSet)
-        {
-            pQueues[player].add(slotToCard[slot]);
-            env.ui.placeToken(player, slot);
-            
-            if(pQueues[player].size()==3)
-                {
-                    pIdqQueue.add(player);
-                }
+        slotLocks[slot].lock();
+        try {
+            if(countTokens(player)<Table.tokenToSet && isCard(slot))
+            {
+                long before = setBits(playerTokens, player * slotWords + slot / Long.SIZE, 1L << slot);
+                if ((before & (1L << slot)) != 0)
+                    return false;
+                slotVersions.incrementAndGet(slot);
+                setBits(slotTokens, slot * playerWords + player / Long.SIZE, 1L << player);
+                slotVersions.incrementAndGet(slot);
+                env.ui.placeToken(player, slot);
+
+                if(countTokens(player)==Table.tokenToSet)
+                    {
+                        claim(player);
+                    }
+                return true;
+            }
+            return false;
+        } finally {
+            slotLocks[slot].unlock();
         }
         
     }
 
+    /**
+     * Publishes a claim of the player's tokens for the dealer, stamped with the time it is made - unless the player
+     * already has a claim waiting: the dealer checks that one against the player's tokens when it takes it, and its
+     * verdict (or finding it stale) releases the player.
+     */
+    private void claim(int player)
+    {
+        if (!claimPending.compareAndSet(player, 0, 1))
+            return;
+        long stamp = System.nanoTime();
+        int[] slots = claimSlots[player];
+        int[] cards = claimCards[player];
+        int found = 0;
+        for (int word = 0; word < slotWords && found < slots.length; word++) {
+            long tokens = playerTokens.get(player * slotWords + word);
+            for (; tokens != 0 && found < slots.length; tokens &= tokens - 1) {
+                slots[found] = word * Long.SIZE + Long.numberOfTrailingZeros(tokens);
+                cards[found] = slotCards.get(slots[found]);
+                found++;
+            }
+        }
+        claimStamps.set(player, stamp);
+        env.metrics.count(player, Metrics.Counter.CLAIMS);
+        GameEvents.claimSubmitted(player, cards);
+        if (!claims.offer(player, slots, cards, stamp))
+            throw new IllegalStateException("claims ring is full with one claim per player, player " + (player + 1));
+    }
+
     /**
      * Removes a token of a player from a grid slot.
      * @param player - the player the token belongs to.
      * @param slot   - the slot from which to remove the token.
-     * @return       - true iff a token was successfully removed.
+     * @return       - true iff a token was successfully removed (false if there was none, e.g. the dealer just removed
+     *                 it with its card).
      */
     public boolean removeToken(int player, int slot) {
-        pQueues[player].remove(slotToCard[slot]);
-        env.ui.removeToken(player, slot);
-        return false;
+        slotLocks[slot].lock();
+        try {
+            long before = clearBits(playerTokens, player * slotWords + slot / Long.SIZE, 1L << slot);
+            if ((before & (1L << slot)) == 0)
+                return false;
+            slotVersions.incrementAndGet(slot);
+            clearBits(slotTokens, slot * playerWords + player / Long.SIZE, 1L << player);
+            slotVersions.incrementAndGet(slot);
+            env.ui.removeToken(player, slot);
+            return true;
+        } finally {
+            slotLocks[slot].unlock();
+        }
+    }
+
+    /**
+     * @return - the cards of the last legal set that was collected by checkSet.
+     */
+    public int[] getLastSet()
+    {
+        return lastSet;
+    }
+
+    /**
+     * @param player - the player.
+     * @return - the System.nanoTime when the player last claimed a set (placed its third token).
+     */
+    public long claimNanos(int player)
+    {
+        return claimStamps.get(player);
     }
 
     //#####forTests
     public int getpQueueSize(int player)
     {
-        return pQueues[player].size();
+        return countTokens(player);
     }
     ///
 
-    public int[] checkSet()
+    /**
+     * Wakes up the dealer if it is waiting for a claim in checkSet.
+     */
+    public void wakeDealer()
     {
-        int [] out = new int[Table.tupleSize];
-        if(!pIdqQueue.isEmpty())
-        {
-            
-            int playerId = pIdqQueue.poll();
-            if(pQueues[playerId].size() < Table.tokenToSet)
-            {
-                out[Table.firstTupleElm] =Table.notSetToCheck;
-                out[Table.secondTupleElm] =playerId;
-                return out;
-            }
+        claims.wakeUp();
+    }
 
-            int [] playersCards = new int [Table.tokenToSet]; 
+    /**
+     * Waits for a player's claim (up to the given timeout) and checks it.
+     *
+     * @param timeoutMillis - the maximum number of milliseconds to wait for a claim.
+     * @return - a tuple of the verdict (goodSet, badSet or notSetToCheck) and the player id (notSetToCheck if none).
+     */
+    public int[] checkSet(long timeoutMillis)
+    {
+        int [] out = new int[Table.tupleSize];
+        if(batchNext == batchSize)
+            takeClaims(timeoutMillis);
 
-            
-            for (int i = 0; i < playersCards.length; i++) {
-                playersCards[i]=pQueues[playerId].poll();
-                pQueues[playerId].add(playersCards[i]);
-            }
+        if(batchNext < batchSize)
+        {
+            int claim = batchOrder[batchNext++];
+            int playerId = batchPlayers[claim];
+            claimPending.set(playerId, 0);
+            int first = claim * Table.tokenToSet;
+            long validationStart = System.nanoTime();
+
+            // the slots of a claim are in ascending order, so locking them in that order cannot deadlock
+            for (int i = 0; i < Table.tokenToSet; i++)
+                slotLocks[batchSlots[first + i]].lock();
+            try {
+                for (int i = 0; i < Table.tokenToSet; i++) {
+                    int slot = batchSlots[first + i];
+                    if(!playerContainsToken(slot, playerId) || slotCards.get(slot) != batchCards[first + i])
+                    {
+                        // the claim is stale: a token was removed or a card was replaced since it was made
+                        out[Table.firstTupleElm] =Table.notSetToCheck;
+                        out[Table.secondTupleElm] =playerId;
+                        return out;
+                    }
+                }
 
-            
-            
-            if(env.util.testSet(playersCards))
-            {
-                ////// good
+                if(env.util.testSet(batchCards[first], batchCards[first + 1], batchCards[first + 2]))
+                {
+                    ////// good
+
+                    /// remove cards
+                    for (int i = 0; i < Table.tokenToSet; i++) {
+                        removeCard(batchSlots[first + i]);
+                        lastSet[i] = batchCards[first + i];
+                    }
+                    clearTokens(playerId);
+                    ///score player
+                    out[Table.firstTupleElm] = Table.goodSet;
+                    out[Table.secondTupleElm] = playerId;
+                    return out;
 
-                /// remove cards
-                // synchronized(lock){
-                for (int i = 0; i < playersCards.length; i++) {
-                    removeCard(cardToSlot[playersCards[i]]);
                 }
-                // }
-                pQueues[playerId].clear();
-                ///score player
-                out[Table.firstTupleElm] = Table.goodSet;
-                out[Table.secondTupleElm] = playerId;
-                return out;
-                
-            }
-            else
-            {
-                out[Table.firstTupleElm] = Table.badSet;
-                out[Table.secondTupleElm] = playerId;
-                return out; 
+                else
+                {
+                    out[Table.firstTupleElm] = Table.badSet;
+                    out[Table.secondTupleElm] = playerId;
+                    return out; 
+                }
+            } finally {
+                for (int i = Table.tokenToSet - 1; i >= 0; i--)
+                    slotLocks[batchSlots[first + i]].unlock();
+                env.metrics.setValidated(System.nanoTime() - validationStart);
+                if (out[Table.firstTupleElm] == Table.goodSet)
+                    GameEvents.claimValidated(playerId, validationStart);
+                else
+                    GameEvents.claimRejected(playerId, out[Table.firstTupleElm] == Table.notSetToCheck, validationStart);
             }
-            
-            
         }
         out[Table.firstTupleElm] =Table.notSetToCheck;
         out[Table.secondTupleElm] =Table.notSetToCheck;
         return out;
     }
 
+    /**
+     * Waits for claims (up to the given timeout) and takes all the published ones as the next batch, ordered by the
+     * time they were made.
+     */
+    private void takeClaims(long timeoutMillis)
+    {
+        env.clock.await(TimeUnit.MILLISECONDS.toNanos(timeoutMillis), claimWait);
+        batchSize = claims.drainTo(batchPlayers, batchSlots, batchCards, batchStamps);
+        batchNext = 0;
+
+        // insertion sort - batches are small and mostly in order already
+        for (int i = 0; i < batchSize; i++) {
+            int claim = i;
+            int j = i;
+            for (; j > 0 && batchStamps[batchOrder[j - 1]] > batchStamps[claim]; j--)
+                batchOrder[j] = batchOrder[j - 1];
+            batchOrder[j] = claim;
+        }
+    }
+
+    /**
+     * Removes all the tokens of a player (without updating the ui).
+     */
+    private void clearTokens(int player)
+    {
+        for (int word = 0; word < slotWords; word++) {
+            long slots = playerTokens.getAndSet(player * slotWords + word, 0);
+            for (; slots != 0; slots &= slots - 1) {
+                int slot = word * Long.SIZE + Long.numberOfTrailingZeros(slots);
+                slotVersions.incrementAndGet(slot);
+                clearBits(slotTokens, slot * playerWords + player / Long.SIZE, 1L << player);
+                slotVersions.incrementAndGet(slot);
+            }
+        }
+    }
+
     public void place_3_cards(int [] cards)
     {
         int counter =0 ;
@@ -327,10 +794,13 @@ public class Table {
                     // env.ui.removeCard(i);
                 }
         }
-        for (int i = 0; i < pQueues.length; i++) {
-            pQueues[i].clear();
+        for (int i = 0; i < env.config.players; i++) {
+            clearTokens(i);
         }
-        pIdqQueue.clear();
+        claims.clear();
+        batchNext = batchSize;
+        for (int i = 0; i < env.config.players; i++)
+            claimPending.set(i, 0);
         return out;
     }
 }
@@ -0,0 +1,23 @@
+package bguspl.set.ex;
+
+/**
+ * Notified of the changes of the cards on a table. Called on the thread changing the table (the dealer's), so an
+ * implementation should return quickly.
+ */
+public interface TableListener {
+
+    /**
+     * Called after a card was placed on the table.
+     *
+     * @param card - the card placed.
+     * @param slot - the slot the card was placed in.
+     */
+    default void cardPlaced(int card, int slot) {}
+
+    /**
+     * Called after a card was removed from the table.
+     *
+     * @param slot - the slot the card was removed from.
+     */
+    default void cardRemoved(int slot) {}
+}
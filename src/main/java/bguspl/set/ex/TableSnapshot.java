@@ -0,0 +1,60 @@
+package bguspl.set.ex;
+
+/**
+ * An immutable, consistent view of the cards and tokens on the table at one point in time (see Table::snapshot).
+ */
+public class TableSnapshot {
+
+    /**
+     * The card in each slot (Table.emptySlot if none).
+     */
+    private final int[] cards;
+
+    /**
+     * The players that have tokens on each slot, in the same layout as the table's slot tokens.
+     */
+    private final long[] slotTokens;
+
+    private final int playerWords;
+
+    /**
+     * True iff the dealer was reshuffling the table.
+     */
+    public final boolean inShuffle;
+
+    TableSnapshot(int[] cards, long[] slotTokens, int playerWords, boolean inShuffle) {
+        this.cards = cards;
+        this.slotTokens = slotTokens;
+        this.playerWords = playerWords;
+        this.inShuffle = inShuffle;
+    }
+
+    public int slots() {
+        return cards.length;
+    }
+
+    /**
+     * @return - the card in the slot, or Table.emptySlot if there is none.
+     */
+    public int card(int slot) {
+        return cards[slot];
+    }
+
+    public boolean isCard(int slot) {
+        return cards[slot] != Table.emptySlot;
+    }
+
+    public boolean hasToken(int player, int slot) {
+        return (slotTokens[slot * playerWords + player / Long.SIZE] & (1L << player)) != 0;
+    }
+
+    /**
+     * @return - the number of tokens the player has on the table.
+     */
+    public int countTokens(int player) {
+        int tokens = 0;
+        for (int slot = 0; slot < cards.length; slot++)
+            if (hasToken(player, slot)) tokens++;
+        return tokens;
+    }
+}
@@ -0,0 +1,146 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameHostTest {
+
+    Logger logger;
+    Config config;
+    GameHost host;
+    int threadsPerGame;
+
+    @BeforeEach
+    void setUp() {
+        logger = Logger.getLogger("GameHostTest");
+        logger.setLevel(Level.OFF);
+        // purposely do not find the configuration files (use defaults here).
+        config = new Config(logger, (String) null);
+        threadsPerGame = Game.threads(config);
+        host = new GameHost(logger, config, new UtilImpl(config), threadsPerGame, () -> new VirtualClock(50_000));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        host.shutdown();
+    }
+
+    @Test
+    void start_QueuesGamesOverTheThreadBudget() throws InterruptedException {
+        int first = host.start();
+        int second = host.start();
+
+        assertEquals(threadsPerGame, host.threadsInUse());
+        assertEquals(Game.State.QUEUED, host.query(second).state());
+
+        host.query(first).join();
+        host.query(second).join();
+        assertEquals(Game.State.FINISHED, host.query(first).state());
+        assertEquals(Game.State.FINISHED, host.query(second).state());
+        assertEquals(0, host.threadsInUse());
+    }
+
+    @Test
+    void stop_RunningAndQueuedGames() throws InterruptedException {
+        int running = host.start();
+        int queued = host.start();
+
+        assertTrue(host.stop(queued));
+        assertEquals(Game.State.STOPPED, host.query(queued).state());
+        assertTrue(host.query(queued).isOver());
+
+        assertTrue(host.stop(running));
+        host.query(running).join();
+        assertEquals(Game.State.STOPPED, host.query(running).state());
+        assertFalse(host.stop(running));
+        assertEquals(0, host.threadsInUse());
+    }
+
+    @Test
+    void list_AndRemoveGamesThatAreOver() throws InterruptedException {
+        int first = host.start();
+        int second = host.start();
+        assertEquals(2, host.list().size());
+
+        assertFalse(host.remove(first));
+        host.stop(first);
+        host.query(first).join();
+        assertTrue(host.remove(first));
+        assertNull(host.query(first));
+        assertEquals(second, host.list().get(0).id);
+    }
+
+    @Test
+    void start_RunsAGameOnPlatformThreads() throws InterruptedException {
+        assertFinished(runGame("Threads"));
+    }
+
+    @Test
+    void start_RunsAGameOnVirtualThreads() throws InterruptedException {
+        Config config = configWith("Virtual");
+        // a runtime without virtual threads (before Java 21) falls back to platform threads
+        assertEquals(ExecutionModel.virtualThreadsSupported() ? ExecutionModel.VIRTUAL : ExecutionModel.THREADS,
+                config.executionModel);
+        assertFinished(runGame("Virtual"));
+    }
+
+    @Test
+    void virtualThreadFactory_NoneWithoutOfVirtual() {
+        // as on Java 8, where Thread has no ofVirtual method
+        assertNull(ExecutionModel.virtualThreadFactory(Object.class));
+        Thread thread = ExecutionModel.VIRTUAL.newThread(() -> {}, "player");
+        assertEquals("player", thread.getName());
+    }
+
+    @Test
+    void start_RunsAGameOnTheWorkerPool() throws InterruptedException {
+        assertFinished(runGame("Pool"));
+    }
+
+    /**
+     * Runs a game of the default config in the given execution model on a host of its own.
+     *
+     * @return - the game, once it is over.
+     */
+    private Game runGame(String executionModel) throws InterruptedException {
+        Config config = configWith(executionModel);
+        GameHost host = new GameHost(logger, config, new UtilImpl(config), Game.threads(config),
+                () -> new VirtualClock(50_000));
+        try {
+            Game game = host.query(host.start());
+            game.join();
+            return game;
+        } finally {
+            host.shutdown();
+        }
+    }
+
+    private Config configWith(String executionModel) {
+        Properties properties = new Properties();
+        properties.put("ExecutionModel", executionModel);
+        return new Config(logger, properties);
+    }
+
+    private static void assertFinished(Game game) {
+        assertEquals(Game.State.FINISHED, game.state());
+        assertTrue(Arrays.stream(game.scores()).sum() > 0);
+    }
+
+    @Test
+    void start_AfterShutdownFails() throws InterruptedException {
+        host.shutdown();
+        assertThrows(IllegalStateException.class, () -> host.start());
+    }
+}
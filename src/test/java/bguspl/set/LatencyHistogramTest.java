@@ -0,0 +1,64 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    LatencyHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    void valueAt_Empty() {
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.valueAt(50));
+        assertEquals(0, histogram.max());
+    }
+
+    @Test
+    void valueAt_SmallValuesAreExact() {
+        for (int value = 1; value <= 10; value++)
+            histogram.record(value);
+
+        assertEquals(10, histogram.count());
+        assertEquals(5, histogram.valueAt(50));
+        assertEquals(9, histogram.valueAt(90));
+        assertEquals(10, histogram.valueAt(100));
+        assertEquals(10, histogram.max());
+    }
+
+    @Test
+    void valueAt_LargeValuesWithinPrecision() {
+        for (long value = 1; value <= 100_000; value++)
+            histogram.record(value * 1000);
+
+        assertWithin(50_000_000L, histogram.valueAt(50));
+        assertWithin(99_000_000L, histogram.valueAt(99));
+        assertWithin(99_900_000L, histogram.valueAt(99.9));
+        assertEquals(100_000_000L, histogram.valueAt(100));
+        assertEquals(100_000_000L, histogram.max());
+    }
+
+    @Test
+    void reset_ForgetsValues() {
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+        assertEquals(Long.MAX_VALUE, histogram.valueAt(100));
+        assertEquals(0, histogram.valueAt(50));
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.valueAt(100));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 32, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,101 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsServerTest {
+
+    Env env;
+    Dealer dealer;
+    MetricsServer server;
+
+    @BeforeEach
+    void setUp() {
+        Logger logger = Logger.getLogger("MetricsServerTest");
+        logger.setLevel(Level.OFF);
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "2");
+        properties.put("ComputerPlayers", "0");
+        // port 0 binds any free port
+        properties.put("MetricsPort", "0");
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, new UserInterfaceHeadless(), new UtilImpl(config));
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, true);
+        server = new MetricsServer(env, dealer, players);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void scrape_CountersAndHistograms() {
+        env.metrics.count(1, Metrics.Counter.CLAIMS);
+        env.metrics.count(1, Metrics.Counter.CLAIMS);
+        env.metrics.verdict(300_000);
+        env.metrics.verdict(20_000_000);
+        env.metrics.reshuffled();
+
+        String metrics = server.scrape();
+        assertTrue(metrics.contains("set_claims_total{player=\"1\"} 0\n"));
+        assertTrue(metrics.contains("set_claims_total{player=\"2\"} 2\n"));
+        assertTrue(metrics.contains("# TYPE set_claim_to_verdict_seconds histogram\n"));
+        assertTrue(metrics.contains("set_claim_to_verdict_seconds_bucket{le=\"1.0E-4\"} 0\n"));
+        assertTrue(metrics.contains("set_claim_to_verdict_seconds_bucket{le=\"5.0E-4\"} 1\n"));
+        assertTrue(metrics.contains("set_claim_to_verdict_seconds_bucket{le=\"0.025\"} 2\n"));
+        assertTrue(metrics.contains("set_claim_to_verdict_seconds_bucket{le=\"+Inf\"} 2\n"));
+        assertTrue(metrics.contains("set_claim_to_verdict_seconds_count 2\n"));
+        assertTrue(metrics.contains("set_reshuffles_total 1\n"));
+        assertTrue(metrics.contains("set_players_frozen 2\n")); // players start frozen until the cards are dealt
+        assertTrue(metrics.contains("set_deck_cards " + env.config.deckSize + "\n"));
+        assertTrue(metrics.contains("set_threads "));
+    }
+
+    @Test
+    void start_ServesMetricsOnLocalhost() throws IOException {
+        server.start();
+        env.metrics.count(0, Metrics.Counter.POINTS);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(url()).openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+        String body = read(connection.getInputStream());
+        assertTrue(body.contains("set_points_total{player=\"1\"} 1\n"));
+    }
+
+    private String url() {
+        return "http://localhost:" + server.port() + "/metrics";
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = input.read(buffer)) != -1; )
+                out.write(buffer, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
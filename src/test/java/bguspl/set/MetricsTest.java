@@ -0,0 +1,57 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+
+    Metrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new Metrics(3);
+    }
+
+    @Test
+    void count_PerPlayer() {
+        metrics.count(0, Metrics.Counter.KEY_PRESSES);
+        metrics.count(0, Metrics.Counter.KEY_PRESSES);
+        metrics.count(2, Metrics.Counter.KEY_PRESSES);
+        metrics.count(2, Metrics.Counter.PENALTIES);
+
+        Metrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.count(0, Metrics.Counter.KEY_PRESSES));
+        assertEquals(0, snapshot.count(1, Metrics.Counter.KEY_PRESSES));
+        assertEquals(1, snapshot.count(2, Metrics.Counter.KEY_PRESSES));
+        assertEquals(1, snapshot.count(2, Metrics.Counter.PENALTIES));
+        assertEquals(0, snapshot.count(2, Metrics.Counter.POINTS));
+        assertEquals(3, snapshot.total(Metrics.Counter.KEY_PRESSES));
+    }
+
+    @Test
+    void snapshot_DoesNotChangeAfterwards() {
+        metrics.verdict(1000);
+        metrics.setValidated(200);
+        metrics.cardRemoved(5000);
+        metrics.reshuffled();
+        Metrics.Snapshot snapshot = metrics.snapshot();
+
+        metrics.verdict(3000);
+        metrics.reshuffled();
+        metrics.count(1, Metrics.Counter.CLAIMS);
+
+        assertEquals(1, snapshot.claimToVerdict.count());
+        assertEquals(1000, snapshot.claimToVerdict.max());
+        assertEquals(1, snapshot.setValidation.count());
+        assertEquals(5000, snapshot.cardTimeOnTable.sum());
+        assertEquals(1, snapshot.reshuffles);
+        assertEquals(0, snapshot.count(1, Metrics.Counter.CLAIMS));
+        assertTrue(snapshot.reshufflesPerMinute() > 0);
+
+        assertEquals(2, metrics.snapshot().claimToVerdict.count());
+        assertEquals(2, metrics.snapshot().reshuffles);
+    }
+}
@@ -0,0 +1,189 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    private Config config;
+    private UtilImpl util;
+
+    @BeforeEach
+    void setUp() {
+        config = config(3, 4);
+        util = new UtilImpl(config);
+    }
+
+    private static Config config(int featureSize, int featureCount) {
+        return config(featureSize, featureCount, Integer.MAX_VALUE);
+    }
+
+    private static Config config(int featureSize, int featureCount, int parallelSearchThreshold) {
+        Properties properties = new Properties();
+        properties.put("ParallelSearchThreshold", Integer.toString(parallelSearchThreshold));
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("PlayerKeys1", "");
+        properties.put("PlayerKeys2", "");
+        return new Config(new MockLogger(), properties);
+    }
+
+    /**
+     * The straightforward definition of a legal set: every feature is either the same or different in all cards.
+     */
+    private static boolean isSet(Config config, int... cards) {
+        for (int i = 0, weight = 1; i < config.featureCount; ++i, weight *= config.featureSize) {
+            int same = 0, different = 0;
+            for (int j = 0; j < cards.length; ++j)
+                for (int k = j + 1; k < cards.length; ++k)
+                    if (cards[j] / weight % config.featureSize == cards[k] / weight % config.featureSize) ++same;
+                    else ++different;
+            if (same != 0 && different != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds sets the straightforward way: every featureSize-combination of the deck, in lexicographic order.
+     */
+    private static List<int[]> findSetsNaive(Config config, List<Integer> deck, int count) {
+        List<int[]> sets = new LinkedList<>();
+        int r = config.featureSize;
+        int[] combination = IntStream.range(0, r).toArray();
+        while (r <= deck.size()) {
+            int[] cards = IntStream.of(combination).map(deck::get).sorted().toArray();
+            if (isSet(config, cards)) {
+                sets.add(cards);
+                if (sets.size() >= count) break;
+            }
+            int t = r - 1;
+            while (t >= 0 && combination[t] == deck.size() - r + t) --t;
+            if (t < 0) break;
+            combination[t]++;
+            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        }
+        return sets;
+    }
+
+    private static List<Integer> shuffledDeck(Config config, int size, long seed) {
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(seed));
+        return new ArrayList<>(deck.subList(0, size));
+    }
+
+    private static void assertSameSets(List<int[]> expected, List<int[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i)
+            assertArrayEquals(expected.get(i), actual.get(i));
+    }
+
+    @Test
+    void cardToFeatures() {
+        assertArrayEquals(new int[]{0, 0, 0, 0}, util.cardToFeatures(0));
+        assertArrayEquals(new int[]{2, 1, 0, 2}, util.cardToFeatures(2 * 27 + 9 + 2));
+        assertArrayEquals(new int[]{2, 2, 2, 2}, util.cardToFeatures(config.deckSize - 1));
+    }
+
+    @Test
+    void testSet_AllTriples() {
+        for (int a = 0; a < config.deckSize; ++a)
+            for (int b = a + 1; b < config.deckSize; ++b)
+                for (int c = b + 1; c < config.deckSize; ++c) {
+                    assertEquals(isSet(config, a, b, c), util.testSet(a, b, c));
+                    assertEquals(isSet(config, a, b, c), util.testSet(new int[]{c, a, b}));
+                }
+    }
+
+    @Test
+    void testSet_UnpackedFeatures() {
+        // 2 * 9 * 4 counter bits do not fit in a long, so the unpacked path is used
+        Config large = config(4, 9);
+        UtilImpl util = new UtilImpl(large);
+        int[][] triples = {{0, 1, 2}, {0, 1, 1 + 4}, {0, 5, 10}, {0, 4, 8}, {7, 7 + 4 * 4, 7 + 2 * 4 * 4}};
+        for (int[] triple : triples)
+            assertEquals(isSet(large, triple), util.testSet(triple[0], triple[1], triple[2]));
+    }
+
+    @Test
+    void findSets_FullDeck() {
+        List<Integer> deck = shuffledDeck(config, config.deckSize, 1);
+        assertEquals(1080, util.findSets(deck, Integer.MAX_VALUE).size());
+        assertSameSets(findSetsNaive(config, deck, Integer.MAX_VALUE), util.findSets(deck, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void findSets_Count() {
+        for (long seed = 0; seed < 20; ++seed) {
+            List<Integer> deck = shuffledDeck(config, 12, seed);
+            for (int count : new int[]{1, 2, 5, Integer.MAX_VALUE})
+                assertSameSets(findSetsNaive(config, deck, count), util.findSets(deck, count));
+        }
+    }
+
+    @Test
+    void findSets_LargerFeatureSize() {
+        for (int featureSize = 4; featureSize <= 5; ++featureSize) {
+            Config large = config(featureSize, 3);
+            UtilImpl util = new UtilImpl(large);
+            for (long seed = 0; seed < 3; ++seed) {
+                List<Integer> deck = shuffledDeck(large, 30, seed);
+                for (int count : new int[]{1, 3, Integer.MAX_VALUE})
+                    assertSameSets(findSetsNaive(large, deck, count), util.findSets(deck, count));
+            }
+        }
+    }
+
+    @Test
+    void findSets_Parallel() {
+        Config parallel = config(3, 6, 0);
+        UtilImpl util = new UtilImpl(parallel);
+        UtilImpl sequential = new UtilImpl(config(3, 6));
+        List<Integer> deck = shuffledDeck(parallel, 400, 0);
+        assertSameSets(sequential.findSets(deck, Integer.MAX_VALUE), util.findSets(deck, Integer.MAX_VALUE));
+
+        List<int[]> sets = util.findSets(deck, 10);
+        assertEquals(10, sets.size());
+        sets.forEach(set -> assertTrue(isSet(parallel, set)));
+    }
+
+    @Test
+    void findSets_ParallelLargerFeatureSize() {
+        Config parallel = config(4, 3, 0);
+        List<Integer> deck = shuffledDeck(parallel, 40, 0);
+        assertSameSets(new UtilImpl(config(4, 3)).findSets(deck, Integer.MAX_VALUE), new UtilImpl(parallel).findSets(deck, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void streamSets() {
+        List<Integer> deck = shuffledDeck(config, config.deckSize, 2);
+        assertSameSets(util.findSets(deck, Integer.MAX_VALUE), util.streamSets(deck).collect(Collectors.toList()));
+        assertSameSets(util.findSets(deck, 5), util.streamSets(deck).limit(5).collect(Collectors.toList()));
+        assertSameSets(util.findSets(deck, Integer.MAX_VALUE), util.streamSets(deck).parallel().collect(Collectors.toList()));
+
+        Config large = config(4, 3);
+        UtilImpl util = new UtilImpl(large);
+        deck = shuffledDeck(large, 40, 0);
+        assertSameSets(util.findSets(deck, Integer.MAX_VALUE), util.streamSets(deck).parallel().collect(Collectors.toList()));
+        assertEquals(0, util.streamSets(deck.subList(0, 3)).count());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
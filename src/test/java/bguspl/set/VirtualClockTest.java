@@ -0,0 +1,70 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualClockTest {
+
+    private static final long millis = 1_000_000L;
+
+    VirtualClock clock;
+    List<Long> ran;
+
+    @BeforeEach
+    void setUp() {
+        clock = new VirtualClock(0);
+        ran = new ArrayList<>();
+    }
+
+    @Test
+    void sleep_RunsDueTasksInOrder() {
+        clock.schedule(() -> ran.add(clock.millis()), 20 * millis);
+        clock.schedule(() -> ran.add(clock.millis()), 5 * millis);
+        clock.schedule(() -> ran.add(clock.millis()), 50 * millis);
+
+        clock.sleep(30);
+
+        assertEquals(30, clock.millis());
+        assertEquals(2, ran.size());
+        assertEquals(5L, (long) ran.get(0));
+        assertEquals(20L, (long) ran.get(1));
+    }
+
+    @Test
+    void await_SkipsAheadToTimeout() {
+        assertFalse(clock.await(100 * millis, timeout -> false));
+        assertEquals(100, clock.millis());
+    }
+
+    @Test
+    void await_StopsAtFirstTask() {
+        clock.schedule(() -> ran.add(clock.millis()), 40 * millis);
+
+        assertFalse(clock.await(100 * millis, timeout -> false));
+        assertEquals(40, clock.millis());
+        assertEquals(1, ran.size());
+    }
+
+    @Test
+    void await_EventDoesNotMoveTime() {
+        assertTrue(clock.await(100 * millis, timeout -> true));
+        assertEquals(0, clock.millis());
+    }
+
+    @Test
+    void schedule_CancelledTaskDoesNotRun() {
+        Future<?> task = clock.schedule(() -> ran.add(clock.millis()), 10 * millis);
+        task.cancel(false);
+
+        clock.sleep(20);
+        assertTrue(ran.isEmpty());
+    }
+}
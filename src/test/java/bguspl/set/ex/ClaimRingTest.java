@@ -0,0 +1,99 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimRingTest {
+
+    private static final int players = 4;
+
+    ClaimRing ring;
+    int[] drainedPlayers;
+    int[] drainedSlots;
+    int[] drainedCards;
+    long[] drainedStamps;
+
+    @BeforeEach
+    void setUp() {
+        ring = new ClaimRing(players);
+        drainedPlayers = new int[ring.capacity()];
+        drainedSlots = new int[ring.capacity() * Table.tokenToSet];
+        drainedCards = new int[ring.capacity() * Table.tokenToSet];
+        drainedStamps = new long[ring.capacity()];
+    }
+
+    private int drain() {
+        return ring.drainTo(drainedPlayers, drainedSlots, drainedCards, drainedStamps);
+    }
+
+    @Test
+    void drainTo_ClaimsInOrder() {
+        assertTrue(ring.offer(1, new int[]{0, 1, 2}, new int[]{10, 11, 12}, 5));
+        assertTrue(ring.offer(0, new int[]{3, 4, 5}, new int[]{13, 14, 15}, 7));
+
+        assertEquals(2, drain());
+        assertEquals(1, drainedPlayers[0]);
+        assertEquals(0, drainedPlayers[1]);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5}, Arrays.copyOf(drainedSlots, 6));
+        assertArrayEquals(new int[]{10, 11, 12, 13, 14, 15}, Arrays.copyOf(drainedCards, 6));
+        assertEquals(5, drainedStamps[0]);
+        assertEquals(7, drainedStamps[1]);
+        assertFalse(ring.isReady());
+    }
+
+    @Test
+    void offer_FullRingRejects() {
+        int[] slots = {0, 1, 2};
+        for (int i = 0; i < ring.capacity(); i++)
+            assertTrue(ring.offer(i, slots, slots, i));
+        assertFalse(ring.offer(0, slots, slots, 0));
+
+        assertEquals(ring.capacity(), drain());
+        assertTrue(ring.offer(0, slots, slots, 0));
+    }
+
+    @Test
+    void clear_DropsClaims() {
+        int[] slots = {0, 1, 2};
+        ring.offer(0, slots, slots, 0);
+        ring.offer(1, slots, slots, 0);
+
+        ring.clear();
+        assertFalse(ring.isReady());
+        assertEquals(0, drain());
+    }
+
+    @Test
+    void offer_ManyProducers() throws InterruptedException {
+        Thread[] producers = new Thread[players];
+        for (int i = 0; i < players; i++) {
+            int player = i;
+            producers[i] = new Thread(() -> {
+                int[] slots = {player, player, player};
+                while (!ring.offer(player, slots, slots, System.nanoTime()))
+                    Thread.yield();
+            });
+            producers[i].start();
+        }
+        for (Thread producer : producers)
+            producer.join();
+
+        assertTrue(ring.await(0) || ring.isReady());
+        assertEquals(players, drain());
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < players; i++) {
+            seen.add(drainedPlayers[i]);
+            assertEquals(drainedPlayers[i], drainedSlots[i * Table.tokenToSet]);
+        }
+        assertEquals(players, seen.size());
+    }
+}
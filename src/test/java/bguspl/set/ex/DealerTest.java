@@ -10,11 +10,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestClassOrder;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.booleanThat;
 import static org.mockito.Mockito.when;
 
@@ -25,6 +33,7 @@ class DealerTest {
 
     private Dealer dealer;
     private Config config;
+    private Table table;
     Player [] players;
 
     @BeforeEach
@@ -73,6 +82,181 @@ class DealerTest {
 
     }
 
+    @Test
+    void countSetsInFullDeck_ClosedForm()
+    {
+        assertEquals(1080, dealerWithUtil(3, 4).getSetsInPlay());
+        assertEquals(1080, bruteForceSets(3, 4));
+        // four cards per set: ((4! + 4)^2 - 4^2) / 4! sets in a 4x2 deck
+        assertEquals(32, dealerWithUtil(4, 2).countSetsInFullDeck());
+        assertEquals(32, bruteForceSets(4, 2));
+        // a set of fewer cards than a claim is not counted
+        assertEquals(-1, dealerWithUtil(2, 4).countSetsInFullDeck());
+    }
+
+    @Test
+    void leavePlay_RemovesTheSetsOfTheCard()
+    {
+        Dealer dealer = dealerWithUtil(3, 4);
+        // every card is in (81 - 1) / 2 = 40 sets
+        dealer.leavePlay(0);
+        assertEquals(1080 - 40, dealer.getSetsInPlay());
+        // cards 0, 1 and 2 form a set, which already left with card 0
+        dealer.leavePlay(1);
+        assertEquals(1080 - 40 - 39, dealer.getSetsInPlay());
+        dealer.leavePlay(2);
+        assertEquals(1080 - 40 - 39 - 39, dealer.getSetsInPlay());
+
+        // the count matches the sets among the cards left
+        int[] left = IntStream.range(3, 81).toArray();
+        assertEquals(new UtilImpl(config).findSets(left, left.length, Integer.MAX_VALUE).size(), dealer.getSetsInPlay());
+    }
+
+    @Test
+    void leavePlay_RecountsWhenSetsAreNotTriples()
+    {
+        Dealer dealer = dealerWithUtil(4, 2);
+        dealer.leavePlay(0);
+        assertEquals(-1, dealer.getSetsInPlay());
+    }
+
+    @Test
+    void run_ClaimWakesTheDealerBeforeTheTick() throws InterruptedException
+    {
+        // the virtual clock only moves once the dealer waited 5 real seconds for a claim
+        CountdownRecorder ui = new CountdownRecorder();
+        Dealer dealer = runDealer(ui, TimeUnit.SECONDS.toNanos(5));
+        try {
+            ui.awaitCountdowns(1);
+            for (int slot = 0; slot < Table.tokenToSet; slot++)
+                table.placeToken(0, slot);
+
+            // checked at once: the countdown is updated before a second of the turn passed
+            ui.awaitCountdowns(2);
+            assertEquals(config.turnTimeoutMillis, ui.countdowns().get(1)[0]);
+        } finally {
+            stop(dealer);
+        }
+    }
+
+    @Test
+    void run_TicksEverySecondThenEvery10msInTheWarning() throws InterruptedException
+    {
+        CountdownRecorder ui = new CountdownRecorder();
+        Dealer dealer = runDealer(ui, TimeUnit.MICROSECONDS.toNanos(10));
+        int ticks = 2 + (Table.tenSec / Table.warningTick);
+        try {
+            ui.awaitCountdowns(1 + ticks);
+        } finally {
+            stop(dealer);
+        }
+
+        // a turn of 12 seconds: the reset, 11s, then every 10ms from the 10 second warning down to 0
+        List<long[]> countdowns = ui.countdowns();
+        assertEquals(12000, countdowns.get(0)[0]);
+        assertEquals(0, countdowns.get(0)[1]);
+        assertEquals(11000, countdowns.get(1)[0]);
+        assertEquals(0, countdowns.get(1)[1]);
+        for (int tick = 2; tick <= ticks; tick++) {
+            assertEquals(Table.tenSec - (tick - 2) * Table.warningTick, countdowns.get(tick)[0]);
+            assertEquals(1, countdowns.get(tick)[1]);
+        }
+    }
+
+    /**
+     * Starts a dealer of one human player on a virtual clock, with a turn of 12 seconds.
+     *
+     * @param idleNanos - the real nanoseconds the dealer waits for a claim before the virtual clock skips ahead.
+     */
+    private Dealer runDealer(UserInterface ui, long idleNanos)
+    {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "1");
+        properties.put("ComputerPlayers", "0");
+        properties.put("TurnTimeoutSeconds", "12");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        MockLogger logger = new MockLogger();
+        config = new Config(logger, properties);
+        Env env = new Env(logger, config, ui, new UtilImpl(config), new VirtualClock(idleNanos));
+        table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        players[0] = new Player(env, dealer, table, 0, true);
+        Thread thread = new Thread(dealer, "dealer");
+        thread.start();
+        dealers.put(dealer, thread);
+        return dealer;
+    }
+
+    private final Map<Dealer, Thread> dealers = new HashMap<>();
+
+    private void stop(Dealer dealer) throws InterruptedException
+    {
+        dealer.terminate();
+        dealers.get(dealer).join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(dealers.get(dealer).isAlive());
+    }
+
+    /**
+     * Records the countdowns the dealer displays: {millis, 1 if in the warning else 0}.
+     */
+    static class CountdownRecorder extends MockUserInterface {
+
+        private final List<long[]> countdowns = new ArrayList<>();
+
+        @Override
+        public synchronized void setCountdown(long millies, boolean warn) {
+            countdowns.add(new long[] {millies, warn ? 1 : 0});
+            notifyAll();
+        }
+
+        synchronized List<long[]> countdowns() {
+            return new ArrayList<>(countdowns);
+        }
+
+        synchronized void awaitCountdowns(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (countdowns.size() < count) {
+                long left = deadline - System.currentTimeMillis();
+                assertTrue(left > 0, "the dealer displayed " + countdowns.size() + " countdowns, expected " + count);
+                wait(left);
+            }
+        }
+    }
+
+    /**
+     * @return - a dealer of a deck with the given features, whose sets are checked by the real UtilImpl.
+     */
+    private Dealer dealerWithUtil(int featureSize, int featureCount)
+    {
+        config = configWith(featureSize, featureCount);
+        Env env = new Env(new MockLogger(), config, new MockUserInterface(), new UtilImpl(config));
+        return new Dealer(env, new Table(env), new Player[0]);
+    }
+
+    private static Config configWith(int featureSize, int featureCount)
+    {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PlayerKeys1", "81,87,69,82");
+        properties.put("PlayerKeys2", "85,73,79,80");
+        return new Config(new MockLogger(), properties);
+    }
+
+    /**
+     * @return - the number of legal sets in a full deck, counted by testing every tuple of featureSize cards.
+     */
+    private static long bruteForceSets(int featureSize, int featureCount)
+    {
+        Config config = configWith(featureSize, featureCount);
+        Util util = new UtilImpl(config);
+        int[] cards = IntStream.range(0, config.deckSize).toArray();
+        return util.findSets(cards, cards.length, Integer.MAX_VALUE).size();
+    }
+
 
     static class MockUserInterface implements UserInterface {
         @Override
@@ -117,11 +301,31 @@ class DealerTest {
             return false;
         }
 
+        @Override
+        public boolean testSet(int card1, int card2, int card3) {
+            return false;
+        }
+
+        @Override
+        public int completeSet(int card1, int card2) {
+            return -1;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
             return null;
         }
 
+        @Override
+        public List<int[]> findSets(int[] cards, int size, int count) {
+            return null;
+        }
+
+        @Override
+        public Stream<int[]> streamSets(List<Integer> deck) {
+            return Stream.empty();
+        }
+
         @Override
         public void spin() {}
     }
@@ -0,0 +1,56 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DrawPileTest {
+
+    private static final int deckSize = 81;
+
+    DrawPile pile;
+
+    @BeforeEach
+    void setUp() {
+        pile = new DrawPile(deckSize);
+    }
+
+    @Test
+    void draw_AllCardsOnce() {
+        Set<Integer> drawn = new HashSet<>();
+        while (!pile.isEmpty())
+            drawn.add(pile.draw());
+
+        assertEquals(deckSize, drawn.size());
+        assertEquals(0, pile.size());
+    }
+
+    @Test
+    void add_ReturnedCardIsDrawnAgain() {
+        int card = pile.draw();
+        int expectedSize = pile.size() + 1;
+
+        pile.add(card);
+        assertEquals(expectedSize, pile.size());
+
+        boolean found = false;
+        while (!pile.isEmpty())
+            found |= pile.draw() == card;
+        assertTrue(found);
+    }
+
+    @Test
+    void cards_HoldsThePile() {
+        pile.draw();
+        Set<Integer> cards = new HashSet<>();
+        for (int i = 0; i < pile.size(); i++)
+            cards.add(pile.cards()[i]);
+
+        assertEquals(deckSize - 1, cards.size());
+    }
+}
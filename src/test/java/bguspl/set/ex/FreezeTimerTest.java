@@ -0,0 +1,66 @@
+package bguspl.set.ex;
+
+import bguspl.set.SystemClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FreezeTimerTest {
+
+    FreezeTimer timer;
+    List<Long> displayed;
+    CountDownLatch released;
+
+    @BeforeEach
+    void setUp() {
+        timer = new FreezeTimer(new SystemClock());
+        displayed = new CopyOnWriteArrayList<>();
+        released = new CountDownLatch(1);
+    }
+
+    @Test
+    void start_ReleasesAfterSubSecondFreeze() throws InterruptedException {
+        long started = System.nanoTime();
+        FreezeTimer.Countdown countdown = timer.start(4, displayed::add, released::countDown);
+
+        assertTrue(released.await(1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(4));
+        assertTrue(countdown.isDone());
+        assertEquals(1, displayed.size());
+        assertEquals(4L, (long) displayed.get(0));
+    }
+
+    @Test
+    void start_DisplaysEveryWholeSecond() throws InterruptedException {
+        timer.start(1500, displayed::add, released::countDown);
+
+        assertTrue(released.await(3, TimeUnit.SECONDS));
+        assertEquals(2, displayed.size());
+        assertEquals(1500L, (long) displayed.get(0));
+        assertEquals(1000L, (long) displayed.get(1));
+    }
+
+    @Test
+    void start_ZeroFreezeReleasesAtOnce() {
+        timer.start(0, displayed::add, released::countDown);
+
+        assertEquals(0, released.getCount());
+        assertTrue(displayed.isEmpty());
+    }
+
+    @Test
+    void cancel_DoesNotRelease() throws InterruptedException {
+        FreezeTimer.Countdown countdown = timer.start(20, displayed::add, released::countDown);
+        countdown.cancel();
+
+        assertFalse(released.await(100, TimeUnit.MILLISECONDS));
+    }
+}
@@ -1,5 +1,6 @@
 package bguspl.set.ex;
 
+import bguspl.set.Clock;
 import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
@@ -8,15 +9,29 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongPredicate;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -89,6 +104,194 @@ class PlayerTest {
     
     }
 
+    @Test
+    void penalty_OutlivesReshuffleAndNewClaimWaitsForVerdict() throws InterruptedException
+    {
+        when(table.placeToken(eq(0), anyInt())).thenReturn(true);
+        table.isInShuflle = false;
+        Config config = new Config(logger, (String) null);
+        ManualClock clock = new ManualClock();
+        Player player = new Player(new Env(logger, config, ui, util, clock), dealer, table, 0, true);
+        player.start();
+        try {
+            player.unfreeze();
+            claim(player);
+            player.setFlag(Table.badSet);
+            awaitTrue(() -> clock.scheduled() > 0);
+
+            // a reshuffle does not lift the penalty
+            player.freeze();
+            player.unfreeze();
+            assertTrue(player.getFreeze());
+
+            clock.advance(TimeUnit.MILLISECONDS.toNanos(config.penaltyFreezeMillis));
+            assertFalse(player.getFreeze());
+
+            // the new claim waits for its verdict, whatever the old penalty left scheduled
+            claim(player);
+            clock.advance(TimeUnit.MILLISECONDS.toNanos(config.penaltyFreezeMillis) * 2);
+            assertTrue(player.getFreeze());
+
+            // the score is shown before the point freeze starts, so wait for its countdown to be scheduled
+            int scheduled = clock.scheduled();
+            player.setFlag(Table.goodSet);
+            awaitTrue(() -> player.score() == 1 && clock.scheduled() > scheduled);
+            clock.advance(TimeUnit.MILLISECONDS.toNanos(config.pointFreezeMillis));
+            assertFalse(player.getFreeze());
+        } finally {
+            player.terminate();
+            player.join();
+        }
+    }
+
+    @Test
+    void keyPressed_CardRemovedBeforeThirdToken() throws InterruptedException
+    {
+        // the dealer removes the card of slot 2 just before the player's token reaches it
+        when(table.placeToken(eq(0), anyInt())).thenAnswer(press -> (int) press.getArgument(1) != 2);
+        table.isInShuflle = false;
+        Player player = new Player(new Env(logger, new Config(logger, (String) null), ui, util, new ManualClock()),
+                dealer, table, 0, true);
+        player.start();
+        try {
+            player.unfreeze();
+            player.keyPressed(0);
+            player.keyPressed(1);
+            player.keyPressed(2);
+            verify(table, timeout(2000)).placeToken(0, 2);
+            // still two tokens and not frozen, so the next key press completes the claim
+            player.keyPressed(3);
+            awaitTrue(() -> player.get_QueueSize() == Table.tokenToSet);
+            assertTrue(player.getFreeze());
+            verify(table).placeToken(0, 3);
+        } finally {
+            player.terminate();
+            player.join();
+        }
+    }
+
+    @Test
+    void keyPressed_DroppedWhileTheInputQueueIsFull() throws InterruptedException
+    {
+        // the player's worker is busy with the first key press until the test releases it
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(table.placeToken(eq(0), anyInt())).thenAnswer(press -> {
+            if ((int) press.getArgument(1) == 0) {
+                busy.countDown();
+                release.await();
+            }
+            return false; // no card, so the player's tokens and freeze do not change
+        });
+        table.isInShuflle = false;
+        Player player = new Player(new Env(logger, new Config(logger, (String) null), ui, util, new ManualClock()),
+                dealer, table, 0, true);
+        player.start();
+        try {
+            player.unfreeze();
+            player.keyPressed(0);
+            assertTrue(busy.await(2, TimeUnit.SECONDS));
+
+            // the queue holds the key presses of one set, the ones after that are dropped
+            for (int slot = 1; slot <= Table.tokenToSet + 2; slot++)
+                player.keyPressed(slot);
+            release.countDown();
+
+            InOrder presses = inOrder(table);
+            for (int slot = 0; slot <= Table.tokenToSet; slot++)
+                presses.verify(table, timeout(2000)).placeToken(0, slot);
+            verify(table, never()).placeToken(0, Table.tokenToSet + 1);
+            verify(table, never()).placeToken(0, Table.tokenToSet + 2);
+        } finally {
+            release.countDown();
+            player.terminate();
+            player.join();
+        }
+    }
+
+    /**
+     * Presses the keys of three slots and waits until the player freezes for the claim.
+     */
+    private static void claim(Player player) {
+        for (int slot = 0; slot < Table.tokenToSet; slot++)
+            player.keyPressed(slot);
+        awaitTrue(player::getFreeze);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.yield();
+        }
+    }
+
+    /**
+     * A clock whose time only moves when the test advances it, running the tasks that become due on the test's thread.
+     */
+    static class ManualClock implements Clock {
+
+        private long now;
+        private final List<Long> deadlines = new ArrayList<>();
+        private final List<FutureTask<Void>> tasks = new ArrayList<>();
+
+        @Override
+        public synchronized long millis() {
+            return TimeUnit.NANOSECONDS.toMillis(now);
+        }
+
+        @Override
+        public synchronized long nanos() {
+            return now;
+        }
+
+        @Override
+        public void sleep(long millis) {}
+
+        @Override
+        public synchronized Future<?> schedule(Runnable task, long delayNanos) {
+            FutureTask<Void> future = new FutureTask<>(task, null);
+            deadlines.add(now + delayNanos);
+            tasks.add(future);
+            return future;
+        }
+
+        @Override
+        public boolean await(long timeoutNanos, LongPredicate wait) {
+            return false;
+        }
+
+        synchronized int scheduled() {
+            return tasks.size();
+        }
+
+        /**
+         * Moves the time forward and runs the tasks due by then, in order.
+         */
+        void advance(long nanos) {
+            long until;
+            synchronized(this) {
+                until = now + nanos;
+            }
+            while (true) {
+                FutureTask<Void> next;
+                synchronized(this) {
+                    int first = -1;
+                    for (int i = 0; i < tasks.size(); i++)
+                        if (deadlines.get(i) <= until && (first < 0 || deadlines.get(i) < deadlines.get(first)))
+                            first = i;
+                    if (first < 0) {
+                        now = until;
+                        return;
+                    }
+                    now = Math.max(now, deadlines.remove(first));
+                    next = tasks.remove(first);
+                }
+                next.run();
+            }
+        }
+    }
+
     @Test
     void removeAllTokens()
     {
@@ -4,15 +4,21 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestClassOrder;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 class TableTest {
@@ -20,6 +26,8 @@ class TableTest {
     Table table;
     private Integer[] slotToCard;
     private Integer[] cardToSlot;
+    private MockLogger logger;
+    private Config config;
 
     @BeforeEach
     void setUp() {
@@ -32,8 +40,8 @@ class TableTest {
         properties.put("TableDelaySeconds", "0");
         properties.put("PlayerKeys1", "81,87,69,82");
         properties.put("PlayerKeys2", "85,73,79,80");
-        MockLogger logger = new MockLogger();
-        Config config = new Config(logger, properties);
+        logger = new MockLogger();
+        config = new Config(logger, properties);
         slotToCard = new Integer[config.tableSize];
         cardToSlot = new Integer[config.deckSize];
 
@@ -42,6 +50,13 @@ class TableTest {
         
     }
 
+    /**
+     * @return - an empty table of the same config that checks sets with the real UtilImpl.
+     */
+    private Table tableWithUtil() {
+        return new Table(new Env(logger, config, new MockUserInterface(), new UtilImpl(config)));
+    }
+
     private int fillSomeSlots() {
         slotToCard[1] = 3;
         slotToCard[2] = 5;
@@ -127,6 +142,20 @@ class TableTest {
         assertEquals(expectedNotEmptySlots, countEmptySlots());
     }
 
+    @Test
+    void placeToken_OnlyOnCards()
+    {
+        slotToCard[0] = 3;
+        cardToSlot[3] = 0;
+        slotToCard[1] = Table.emptySlot;
+
+        assertTrue(table.placeToken(0, 0));
+        assertFalse(table.placeToken(0, 0));
+        assertFalse(table.placeToken(0, 1));
+        assertTrue(table.removeToken(0, 0));
+        assertFalse(table.removeToken(0, 0));
+    }
+
     @Test
     void removeToken()
     {
@@ -143,6 +172,157 @@ class TableTest {
         
     }
 
+    @Test
+    void removeCard_RemovesTokensOfAllPlayers()
+    {
+        fillAllSlots();
+        table.placeToken(0, 1);
+        table.placeToken(0, 2);
+        table.placeToken(1, 1);
+
+        table.removeCard(1);
+
+        assertFalse(table.playerContainsToken(1, 0));
+        assertFalse(table.playerContainsToken(1, 1));
+        assertTrue(table.playerContainsToken(2, 0));
+        assertEquals(1, table.getpQueueSize(0));
+        assertEquals(0, table.getpQueueSize(1));
+    }
+
+    @Test
+    void snapshot_CardsAndTokens()
+    {
+        table.placeCard(7, 0);
+        table.placeCard(9, 3);
+        table.placeToken(1, 3);
+
+        TableSnapshot snapshot = table.snapshot();
+        table.removeCard(3);
+
+        assertEquals(7, snapshot.card(0));
+        assertEquals(9, snapshot.card(3));
+        assertFalse(snapshot.isCard(1));
+        assertTrue(snapshot.hasToken(1, 3));
+        assertFalse(snapshot.hasToken(0, 3));
+        assertEquals(1, snapshot.countTokens(1));
+        assertFalse(table.snapshot().isCard(3));
+    }
+
+    @Test
+    void addListener_NotifiedOfCardChanges()
+    {
+        List<String> changes = new ArrayList<>();
+        table.addListener(new TableListener() {
+            @Override
+            public void cardPlaced(int card, int slot) {
+                changes.add("placed " + card + " " + slot);
+            }
+
+            @Override
+            public void cardRemoved(int slot) {
+                changes.add("removed " + slot);
+            }
+        });
+
+        table.placeCard(7, 2);
+        table.removeCard(2);
+
+        assertEquals(Arrays.asList("placed 7 2", "removed 2"), changes);
+    }
+
+    @Test
+    void setCount_PlaceAndRemoveCards() {
+        Table table = tableWithUtil();
+
+        // cards 0, 1 and 2 only differ in the last feature, so they form a set, and so do 0, 3 and 6
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(3, 2);
+        assertEquals(0, table.setCount());
+        assertFalse(table.anySet());
+
+        table.placeCard(2, 3);
+        assertEquals(1, table.setCount());
+        assertTrue(table.anySet());
+
+        table.removeCard(3);
+        table.placeCard(6, 3);
+        assertEquals(1, table.setCount());
+
+        table.removeCard(0);
+        assertEquals(0, table.setCount());
+
+        table.placeCard(0, 0);
+        table.removeCards();
+        assertEquals(0, table.setCount());
+    }
+
+    @Test
+    void findSet_FromAnySlot() {
+        Table table = tableWithUtil();
+        int[] slots = new int[Table.tokenToSet];
+
+        table.placeCard(0, 0);
+        table.placeCard(3, 1);
+        table.placeCard(1, 2);
+        assertFalse(table.findSet(slots, 0));
+
+        // cards 0, 1 and 2 form a set
+        table.placeCard(2, 3);
+        for (int from = 0; from < 4; from++) {
+            assertTrue(table.findSet(slots, from));
+            Arrays.sort(slots);
+            assertEquals("[0, 2, 3]", Arrays.toString(slots));
+        }
+    }
+
+    @Test
+    void claim_OneWaitingClaimPerPlayer() {
+        fillAllSlots();
+        table.placeToken(0, 0);
+        table.placeToken(0, 1);
+        table.placeToken(0, 2);
+        // claiming again before the dealer took the first claim does not queue a second one
+        table.removeToken(0, 2);
+        table.placeToken(0, 3);
+
+        int[] verdict = table.checkSet(0);
+        assertEquals(Table.notSetToCheck, verdict[Table.firstTupleElm]); // the first claim is stale
+        assertEquals(0, verdict[Table.secondTupleElm]);
+        assertEquals(Table.notSetToCheck, table.checkSet(0)[Table.secondTupleElm]);
+
+        // released by the verdict, the player claims again
+        table.removeToken(0, 3);
+        table.placeToken(0, 3);
+        verdict = table.checkSet(0);
+        assertEquals(Table.badSet, verdict[Table.firstTupleElm]);
+        assertEquals(0, verdict[Table.secondTupleElm]);
+    }
+
+    @Test
+    void claim_EveryPlayerCanClaimAtOnce() {
+        fillAllSlots();
+        int players = 2;
+        for (int player = 0; player < players; player++)
+            for (int slot = 0; slot < Table.tokenToSet; slot++)
+                table.placeToken(player, slot);
+
+        for (int player = 0; player < players; player++)
+            assertEquals(Table.badSet, table.checkSet(0)[Table.firstTupleElm]);
+
+        // a reshuffle drops the waiting claims, and the players may claim again
+        table.placeToken(0, 0);
+        table.placeToken(0, 1);
+        table.placeToken(0, 2);
+        table.removeCards();
+        assertEquals(Table.notSetToCheck, table.checkSet(0)[Table.secondTupleElm]);
+        fillAllSlots();
+        table.placeToken(0, 0);
+        table.placeToken(0, 1);
+        table.placeToken(0, 2);
+        assertEquals(Table.badSet, table.checkSet(0)[Table.firstTupleElm]);
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -186,11 +366,31 @@ class TableTest {
             return false;
         }
 
+        @Override
+        public boolean testSet(int card1, int card2, int card3) {
+            return false;
+        }
+
+        @Override
+        public int completeSet(int card1, int card2) {
+            return -1;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
             return null;
         }
 
+        @Override
+        public List<int[]> findSets(int[] cards, int size, int count) {
+            return null;
+        }
+
+        @Override
+        public Stream<int[]> streamSets(List<Integer> deck) {
+            return Stream.empty();
+        }
+
         @Override
         public void spin() {}
     }